@@ -0,0 +1,44 @@
+package io.github.fedimser.nonolab;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Nonograms from the offline corpus, used by benchmarks.
+ * Corpus directory is test/resources/corpus, unless set with -Dnonolab.corpus=path.
+ */
+class BenchmarkCorpus {
+    static final String CORPUS_PROPERTY = "nonolab.corpus";
+
+    /**
+     * @return Corpus files of given grade (easy, medium or hard), sorted by name.
+     */
+    static List<File> files(String grade) {
+        File dir = new File(System.getProperty(CORPUS_PROPERTY, "test/resources/corpus"), grade);
+        File[] files = dir.listFiles((d, name) -> name.endsWith(".non"));
+        if (files == null || files.length == 0) {
+            throw new IllegalStateException("No nonograms in " + dir.getAbsolutePath());
+        }
+        Arrays.sort(files);
+        return Arrays.asList(files);
+    }
+
+    static List<NonogramDescription> descriptions(String grade) throws IOException {
+        List<NonogramDescription> ans = new ArrayList<NonogramDescription>();
+        for (File file : files(grade)) {
+            ans.add(NonogramDescription.fromFile(file));
+        }
+        return ans;
+    }
+
+    static List<NonogramSolution> solutions(String grade) throws IOException {
+        List<NonogramSolution> ans = new ArrayList<NonogramSolution>();
+        for (File file : files(grade)) {
+            ans.add(NonogramSolution.fromFile(file));
+        }
+        return ans;
+    }
+}
@@ -0,0 +1,87 @@
+package io.github.fedimser.nonolab;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading .non files, one by one and as a single corpus file, and drawing pictures of solved nonograms.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileBenchmark {
+    @Param({"easy", "hard"})
+    public String grade;
+
+    private List<File> files;
+    private List<NonogramSolution> solutions;
+    private Path outputDir;
+    private File corpusFile;  // All files of the grade, one after another.
+
+    @Setup
+    public void setUp() throws IOException {
+        files = BenchmarkCorpus.files(grade);
+        solutions = BenchmarkCorpus.solutions(grade);
+        outputDir = Files.createTempDirectory("nonolab-bench");
+        corpusFile = Files.createTempFile("nonolab-corpus", ".non").toFile();
+        for (int i = 0; i < 100; i++) {
+            for (File file : files) {
+                Files.write(corpusFile.toPath(), Files.readAllBytes(file.toPath()), StandardOpenOption.APPEND);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        File[] outputs = outputDir.toFile().listFiles();
+        if (outputs != null) {
+            for (File file : outputs) Files.delete(file.toPath());
+        }
+        Files.delete(outputDir);
+        Files.delete(corpusFile.toPath());
+    }
+
+    @Benchmark
+    public void readDescription(Blackhole blackhole) throws IOException {
+        for (File file : files) {
+            blackhole.consume(NonogramDescription.fromFile(file));
+        }
+    }
+
+    @Benchmark
+    public void readCorpus(Blackhole blackhole) throws IOException {
+        try (NonFileReader reader = new NonFileReader(corpusFile)) {
+            NonFileReader.Puzzle puzzle;
+            while ((puzzle = reader.next()) != null) blackhole.consume(puzzle);
+        }
+    }
+
+    @Benchmark
+    public void drawAll() throws IOException {
+        for (int i = 0; i < solutions.size(); i++) {
+            NonogramDrawer.drawAll(solutions.get(i), outputDir, "n" + i);
+        }
+    }
+}
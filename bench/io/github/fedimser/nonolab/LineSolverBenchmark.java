@@ -0,0 +1,116 @@
+package io.github.fedimser.nonolab;
+
+import io.github.fedimser.nonolab.util.BitArray;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Solving single lines, which is what Solver spends most of its time on.
+ * Lines are rows and columns of corpus nonograms of given grade, with a random part of their cells known.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LineSolverBenchmark {
+    private static final int LINES = 1024;
+
+    @Param({"BIT", "DYNAMIC", "ENUMERATION"})
+    public String lineSolverType;
+
+    @Param({"easy", "hard"})
+    public String grade;
+
+    @Param({"0.3"})
+    public double knownFraction;
+
+    private LineSolver lineSolver;
+    private List<List<Integer>> descriptions;
+    private int[][] clues;  // Clues of chosen lines.
+    private BitArray[] knownFilled;
+    private BitArray[] knownEmpty;
+    private BitArray[] filled;
+    private BitArray[] empty;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        if (lineSolverType.equals("BIT")) {
+            lineSolver = new BitLineSolver();
+        } else if (lineSolverType.equals("DYNAMIC")) {
+            lineSolver = new DynamicLineSolver();
+        } else {
+            lineSolver = new EnumerationLineSolver();
+        }
+
+        List<List<Boolean>> lines = new ArrayList<List<Boolean>>();
+        descriptions = new ArrayList<List<Integer>>();
+        for (NonogramSolution solution : BenchmarkCorpus.solutions(grade)) {
+            for (int y = 0; y < solution.getHeight(); y++) {
+                lines.add(solution.getRow(y));
+                descriptions.add(solution.getRowDescription(y));
+            }
+            for (int x = 0; x < solution.getWidth(); x++) {
+                lines.add(solution.getColumn(x));
+                descriptions.add(solution.getColumnDescription(x));
+            }
+        }
+
+        Random random = new Random(1);
+        List<List<Integer>> chosenDescriptions = new ArrayList<List<Integer>>();
+        knownFilled = new BitArray[LINES];
+        knownEmpty = new BitArray[LINES];
+        filled = new BitArray[LINES];
+        empty = new BitArray[LINES];
+        for (int i = 0; i < LINES; i++) {
+            int j = random.nextInt(lines.size());
+            List<Boolean> line = lines.get(j);
+            chosenDescriptions.add(descriptions.get(j));
+            knownFilled[i] = new BitArray(line.size());
+            knownEmpty[i] = new BitArray(line.size());
+            filled[i] = new BitArray(line.size());
+            empty[i] = new BitArray(line.size());
+            for (int k = 0; k < line.size(); k++) {
+                if (random.nextDouble() >= knownFraction) continue;
+                if (line.get(k)) {
+                    knownFilled[i].setBit(k, true);
+                } else {
+                    knownEmpty[i].setBit(k, true);
+                }
+            }
+        }
+        descriptions = chosenDescriptions;
+        clues = new int[LINES][];
+        for (int i = 0; i < LINES; i++) {
+            clues[i] = descriptions.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    @Benchmark
+    public boolean solveLine() {
+        int i = next;
+        next = (next + 1) % LINES;
+        for (int k = 0; k < knownFilled[i].getChunksCount(); k++) {
+            filled[i].setChunk(k, knownFilled[i].getChunk(k));
+            empty[i].setChunk(k, knownEmpty[i].getChunk(k));
+        }
+        return lineSolver.solve(clues[i], 0, clues[i].length, filled[i], empty[i]);
+    }
+}
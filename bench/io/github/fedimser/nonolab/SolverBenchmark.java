@@ -0,0 +1,65 @@
+package io.github.fedimser.nonolab;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Solving whole nonograms of the corpus, and checking uniqueness of their solutions.
+ * Each invocation processes all nonograms of one grade.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolverBenchmark {
+    @Param({"easy", "medium", "hard"})
+    public String grade;
+
+    private List<NonogramDescription> descriptions;
+
+    @Setup
+    public void setUp() throws IOException {
+        descriptions = BenchmarkCorpus.descriptions(grade);
+    }
+
+    @Benchmark
+    public void solve(Blackhole blackhole) {
+        for (NonogramDescription descr : descriptions) {
+            blackhole.consume(new Solver(descr).solve());
+        }
+    }
+
+    @Benchmark
+    public void solveWithoutProbing(Blackhole blackhole) {
+        for (NonogramDescription descr : descriptions) {
+            Solver solver = new Solver(descr);
+            solver.setProbingBudget(0);
+            blackhole.consume(solver.solve());
+        }
+    }
+
+    @Benchmark
+    public void solveAndCheckUniqueness(Blackhole blackhole) {
+        for (NonogramDescription descr : descriptions) {
+            Solver solver = new Solver(descr);
+            blackhole.consume(solver.solve());
+            blackhole.consume(solver.hasUniqueSolution());
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package io.github.fedimser.nonolab;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.time.Duration;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Solves many nonograms concurrently and writes one report line per nonogram as soon as it is solved.
+ * Each worker thread takes next file, solves it and checks whether solution is unique.
+ * If solving a file fails, even with an Error, it gets status ERROR and the worker goes on.
+ * Solving which takes longer than timeout is stopped by search limits of the solver.
+ */
+public class BatchSolver {
+    public enum Status {
+        UNIQUE,
+        AMBIGUOUS,
+        IMPOSSIBLE,
+        TIMED_OUT,
+        ERROR
+    }
+
+    public enum Format {
+        CSV,
+        JSON  // JSON Lines, one object per nonogram.
+    }
+
+    /**
+     * Outcome of solving one nonogram.
+     */
+    public static class Result {
+        private final File file;
+        private final Status status;
+        private final long timeMillis;
+        private final long nodes;
+
+        Result(File file, Status status, long timeMillis, long nodes) {
+            this.file = file;
+            this.status = status;
+            this.timeMillis = timeMillis;
+            this.nodes = nodes;
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public long getTimeMillis() {
+            return timeMillis;
+        }
+
+        /**
+         * @return Number of search nodes visited while solving and checking uniqueness.
+         */
+        public long getNodes() {
+            return nodes;
+        }
+    }
+
+    private final int threads;
+    private final long timeoutMillis;
+    private Branching branching = Branching.FIRST_CELL;
+    private ValueOrder valueOrder = ValueOrder.EMPTY_FIRST;
+    private ThreadFactory threadFactory;  // Null for platform threads named by number.
+
+    /**
+     * @param threads Number of worker threads.
+     * @param timeoutMillis Time limit for one nonogram, 0 means no limit.
+     */
+    public BatchSolver(int threads, long timeoutMillis) {
+        if (threads < 1) throw new IllegalArgumentException("Number of threads must be positive.");
+        if (timeoutMillis < 0) throw new IllegalArgumentException("Timeout must not be negative.");
+        this.threads = threads;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public void setBranching(Branching branching, ValueOrder valueOrder) {
+        this.branching = branching;
+        this.valueOrder = valueOrder;
+    }
+
+    /**
+     * Sets factory which creates worker threads, e.g. Thread.ofVirtual().factory() on Java 21 and later.
+     * Number of workers is still given to constructor. By default workers are platform threads.
+     */
+    public void setThreadFactory(ThreadFactory threadFactory) {
+        this.threadFactory = threadFactory;
+    }
+
+    /**
+     * @return Given .non files, and .non files in given directories, sorted by name within each directory.
+     */
+    public static List<File> listPuzzles(List<File> paths) {
+        List<File> ans = new ArrayList<File>();
+        for (File path : paths) {
+            if (path.isDirectory()) {
+                File[] files = path.listFiles((dir, name) -> name.endsWith(".non"));
+                if (files == null) continue;
+                Arrays.sort(files);
+                ans.addAll(Arrays.asList(files));
+            } else {
+                ans.add(path);
+            }
+        }
+        return ans;
+    }
+
+    /**
+     * Solves all files and writes report to out, in order in which they are solved.
+     * @return Results, in order of files.
+     */
+    public List<Result> solveAll(List<File> files, Writer out, Format format) throws IOException {
+        Result[] results = new Result[files.size()];
+        AtomicInteger next = new AtomicInteger();
+        AtomicReference<IOException> writeError = new AtomicReference<IOException>();
+
+        if (format == Format.CSV) out.write("file,status,millis,nodes,unique\n");
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            Runnable work = () -> {
+                while (true) {
+                    int i = next.getAndIncrement();
+                    if (i >= results.length || writeError.get() != null) return;
+                    try {
+                        results[i] = solveOne(files.get(i));
+                    } catch (Throwable ex) {
+                        results[i] = new Result(files.get(i), Status.ERROR, 0, 0);
+                    }
+                    synchronized (out) {
+                        try {
+                            out.write(formatResult(results[i], format));
+                            out.flush();
+                        } catch (IOException ex) {
+                            writeError.compareAndSet(null, ex);
+                        }
+                    }
+                }
+            };
+            workers[t] = (threadFactory == null)
+                    ? new Thread(work, "batch-worker-" + t)
+                    : threadFactory.newThread(work);
+            workers[t].start();
+        }
+
+        try {
+            for (Thread worker : workers) worker.join();
+        } catch (InterruptedException ex) {
+            for (Thread worker : workers) worker.interrupt();
+            Thread.currentThread().interrupt();
+        }
+        if (writeError.get() != null) throw writeError.get();
+        return Arrays.asList(results);
+    }
+
+    Result solveOne(File file) {
+        long start = System.nanoTime();
+        NonogramDescription desc;
+        try {
+            desc = NonogramDescription.fromFile(file);
+        } catch (IOException | RuntimeException ex) {
+            return new Result(file, Status.ERROR, 0, 0);
+        }
+
+        Solver solver = new Solver(desc);
+        solver.setBranching(branching);
+        solver.setValueOrder(valueOrder);
+        SearchLimits limits = (timeoutMillis > 0)
+                ? SearchLimits.NONE.withTimeout(Duration.ofMillis(timeoutMillis))
+                : SearchLimits.NONE;
+        Status status;
+        try {
+            Solver.SolveResult result = solver.solve(limits);
+            if (result == Solver.SolveResult.IMPOSSIBLE) {
+                status = Status.IMPOSSIBLE;
+            } else if (result == Solver.SolveResult.SOLVED) {
+                status = solver.hasUniqueSolution() ? Status.UNIQUE : Status.AMBIGUOUS;
+                if (solver.getSolveResult() == Solver.SolveResult.TIMED_OUT) status = Status.TIMED_OUT;
+            } else {
+                status = Status.TIMED_OUT;
+            }
+        } catch (RuntimeException ex) {
+            status = Status.ERROR;
+        }
+        long millis = (System.nanoTime() - start) / 1000000;
+        return new Result(file, status, millis, solver.getNodesCount());
+    }
+
+    static String formatResult(Result result, Format format) {
+        String unique = (result.status == Status.UNIQUE) ? "true"
+                : (result.status == Status.AMBIGUOUS || result.status == Status.IMPOSSIBLE) ? "false" : "";
+        if (format == Format.CSV) {
+            return String.format("%s,%s,%d,%d,%s\n", escapeCsv(result.file.getPath()), result.status,
+                    result.timeMillis, result.nodes, unique);
+        } else {
+            return String.format("{\"file\":\"%s\",\"status\":\"%s\",\"millis\":%d,\"nodes\":%d,\"unique\":%s}\n",
+                    escapeJson(result.file.getPath()), result.status, result.timeMillis, result.nodes,
+                    unique.isEmpty() ? "null" : unique);
+        }
+    }
+
+    private static String escapeCsv(String s) {
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0) return s;
+        return '"' + s.replace("\"", "\"\"") + '"';
+    }
+
+    private static String escapeJson(String s) {
+        StringBuilder sb = new StringBuilder();
+        for (char c : s.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,354 @@
+package io.github.fedimser.nonolab;
+
+import io.github.fedimser.nonolab.util.BitArray;
+
+/**
+ * Bit-parallel line solver. Line is held as two masks (known filled and known empty cells),
+ * and sets of feasible block positions are computed with shifts and additions on whole words.
+ * Lines up to 64 cells are solved in single machine words, longer lines use arrays of words.
+ *
+ * <p>For block j, forward pass finds starts at which blocks 0..j can be placed consistently
+ * with cells to the left, and the same pass over reversed line gives starts consistent with cells to the right.
+ * Runs of cells which are allowed to be empty are crossed at once with carry propagation:
+ * <code>((seeds &amp; pass) + pass) ^ pass</code> marks everything reachable from seeds through pass cells.
+ *
+ * <p>Solver keeps its scratch buffers between calls, so it is not thread-safe.
+ */
+public class BitLineSolver implements LineSolver {
+    private int[] clues;  // Clues of the line being solved, starting at cluesStart.
+    private int cluesStart;
+
+    // Scratch for lines up to 64 cells.
+    private long[] fwdStarts = new long[0];
+    private long[] fwdGaps = new long[0];
+    private long[] bwdStarts = new long[0];
+    private long[] bwdGaps = new long[0];
+    private long narrowFilled;
+    private long narrowEmpty;
+
+    // Scratch for longer lines.
+    private int words;
+    private long[] topMask = new long[0];
+    private long[][] wideFwdStarts = new long[0][];
+    private long[][] wideFwdGaps = new long[0][];
+    private long[][] wideBwdStarts = new long[0][];
+    private long[][] wideBwdGaps = new long[0][];
+    private long[] knownFilled, knownEmpty, revFilled, revEmpty;
+    private long[] canFill, canEmpty, tmp1, tmp2, tmp3;
+
+    @Override
+    public LineSolver newInstance() {
+        return new BitLineSolver();
+    }
+
+    @Override
+    public boolean solve(int[] clues, int start, int count, BitArray filled, BitArray empty) {
+        int k = count;
+        this.clues = clues;
+        this.cluesStart = start;
+
+        int n = filled.getLength();
+        if (n <= 64) {
+            long full = (n == 64) ? -1L : (1L << n) - 1;
+            long fill = filled.getChunk(0);
+            long emp = empty.getChunk(0);
+            if (k == 0) {
+                if (fill != 0) return false;
+                empty.setChunk(0, full);
+                return true;
+            }
+            if (!solveNarrow(k, n, full, fill, emp)) return false;
+            filled.setChunk(0, narrowFilled);
+            empty.setChunk(0, narrowEmpty);
+            return true;
+        }
+
+        prepareWide(k, n, filled, empty);
+        if (k == 0) {
+            if (!isZero(knownFilled)) return false;
+            for (int i = 0; i < words; i++) empty.setChunk(i, topMask[i]);
+            return true;
+        }
+        if (!solveWide(k, n)) return false;
+        for (int i = 0; i < words; i++) {
+            filled.setChunk(i, topMask[i] & ~canEmpty[i]);
+            empty.setChunk(i, topMask[i] & ~canFill[i]);
+        }
+        return true;
+    }
+
+    /**
+     * Solves line of length n <= 64 with k > 0 blocks.
+     * On success leaves necessarily filled cells in narrowFilled and necessarily empty cells in narrowEmpty.
+     */
+    private boolean solveNarrow(int k, int n, long full, long fill, long emp) {
+        if (fwdStarts.length < k + 1) {
+            fwdStarts = new long[k + 1];
+            fwdGaps = new long[k + 1];
+            bwdStarts = new long[k + 1];
+            bwdGaps = new long[k + 1];
+        }
+
+        forwardNarrow(k, full, fill, emp, false, fwdStarts, fwdGaps);
+        long revFill = Long.reverse(fill) >>> (64 - n);
+        long revEmp = Long.reverse(emp) >>> (64 - n);
+        forwardNarrow(k, full, revFill, revEmp, true, bwdStarts, bwdGaps);
+
+        long fillable = 0;
+        long emptiable = 0;
+        for (int j = 0; j < k; j++) {
+            int len = clues[cluesStart + j];
+            long starts = fwdStarts[j] & (Long.reverse(bwdStarts[k - 1 - j]) >>> (64 - n) >>> (len - 1));
+            if (starts == 0) return false;
+            fillable |= cover(starts, len);
+        }
+        for (int j = 0; j <= k; j++) {
+            emptiable |= fwdGaps[j] & (Long.reverse(bwdGaps[k - j]) >>> (64 - n));
+        }
+
+        narrowFilled = full & ~emptiable;
+        narrowEmpty = full & ~fillable;
+        return true;
+    }
+
+    /**
+     * Computes for each block j the set of its starts, such that blocks 0..j fit in line to the left of its end,
+     * and for each j the set of cells which can be empty after blocks 0..j-1.
+     */
+    private void forwardNarrow(int k, long full, long fill, long emp, boolean reversed, long[] starts, long[] gaps) {
+        long pass = ~fill & full;
+        long notEmpty = ~emp & full;
+
+        long reach = smear(1L, pass) & full;
+        gaps[0] = reach & pass;
+        for (int j = 0; j < k; j++) {
+            int len = clues[cluesStart + (reversed ? k - 1 - j : j)];
+            long place = runStarts(notEmpty, len) & ~shiftRight(fill, len) & ~(fill << 1);
+            starts[j] = place & reach;
+            reach = smear(shiftLeft(starts[j], len + 1), pass) & full;
+            gaps[j + 1] = smear(shiftLeft(starts[j], len), pass) & pass;
+        }
+    }
+
+    /**
+     * @return Mask of positions reachable from seeds, moving to the right only from pass cells.
+     */
+    private static long smear(long seeds, long pass) {
+        return (((seeds & pass) + pass) ^ pass) | seeds;
+    }
+
+    /**
+     * @return Mask of positions s such that bits [s, s+len) are all set in mask.
+     */
+    private static long runStarts(long mask, int len) {
+        long ans = mask;
+        int covered = 1;
+        while (covered < len) {
+            int step = Math.min(covered, len - covered);
+            ans &= ans >>> step;
+            covered += step;
+        }
+        return ans;
+    }
+
+    /**
+     * @return Mask of all cells covered by blocks of given length starting at given positions.
+     */
+    private static long cover(long starts, int len) {
+        long ans = starts;
+        int covered = 1;
+        while (covered < len) {
+            int step = Math.min(covered, len - covered);
+            ans |= ans << step;
+            covered += step;
+        }
+        return ans;
+    }
+
+    private static long shiftLeft(long x, int amount) {
+        return amount >= 64 ? 0 : x << amount;
+    }
+
+    private static long shiftRight(long x, int amount) {
+        return amount >= 64 ? 0 : x >>> amount;
+    }
+
+    private void prepareWide(int k, int n, BitArray filled, BitArray empty) {
+        words = filled.getChunksCount();
+        if (topMask.length != words) {
+            topMask = new long[words];
+            knownFilled = new long[words];
+            knownEmpty = new long[words];
+            revFilled = new long[words];
+            revEmpty = new long[words];
+            canFill = new long[words];
+            canEmpty = new long[words];
+            tmp1 = new long[words];
+            tmp2 = new long[words];
+            tmp3 = new long[words];
+            wideFwdStarts = new long[0][];
+        }
+        for (int i = 0; i < words; i++) {
+            int bitsInWord = Math.min(64, n - 64 * i);
+            topMask[i] = (bitsInWord == 64) ? -1L : (1L << bitsInWord) - 1;
+            knownFilled[i] = filled.getChunk(i);
+            knownEmpty[i] = empty.getChunk(i);
+        }
+        if (wideFwdStarts.length < k + 1) {
+            wideFwdStarts = new long[k + 1][words];
+            wideFwdGaps = new long[k + 1][words];
+            wideBwdStarts = new long[k + 1][words];
+            wideBwdGaps = new long[k + 1][words];
+        }
+    }
+
+    /**
+     * Same as solveNarrow, but for arrays of words.
+     * On success leaves cells which can be filled in canFill, and cells which can be empty in canEmpty.
+     */
+    private boolean solveWide(int k, int n) {
+        forwardWide(k, knownFilled, knownEmpty, false, wideFwdStarts, wideFwdGaps);
+        reverse(knownFilled, n, revFilled);
+        reverse(knownEmpty, n, revEmpty);
+        forwardWide(k, revFilled, revEmpty, true, wideBwdStarts, wideBwdGaps);
+
+        clear(canFill);
+        clear(canEmpty);
+        for (int j = 0; j < k; j++) {
+            int len = clues[cluesStart + j];
+            reverse(wideBwdStarts[k - 1 - j], n, tmp1);
+            shiftRight(tmp1, len - 1, tmp1);
+            for (int i = 0; i < words; i++) tmp1[i] &= wideFwdStarts[j][i];
+            if (isZero(tmp1)) return false;
+            cover(tmp1, len, tmp2);
+            for (int i = 0; i < words; i++) canFill[i] |= tmp1[i];
+        }
+        for (int j = 0; j <= k; j++) {
+            reverse(wideBwdGaps[k - j], n, tmp1);
+            for (int i = 0; i < words; i++) canEmpty[i] |= tmp1[i] & wideFwdGaps[j][i];
+        }
+        return true;
+    }
+
+    private void forwardWide(int k, long[] fill, long[] emp, boolean reversed, long[][] starts, long[][] gaps) {
+        // tmp3 holds cells which can be empty, reach is kept in gaps[j+1] until it is overwritten.
+        for (int i = 0; i < words; i++) tmp3[i] = ~fill[i] & topMask[i];
+        long[] reach = tmp2;
+        clear(tmp1);
+        tmp1[0] = 1L;
+        smear(tmp1, tmp3, reach);
+        for (int i = 0; i < words; i++) gaps[0][i] = reach[i] & tmp3[i];
+
+        for (int j = 0; j < k; j++) {
+            int len = clues[cluesStart + (reversed ? k - 1 - j : j)];
+            long[] place = starts[j];
+            for (int i = 0; i < words; i++) place[i] = ~emp[i] & topMask[i];
+            runStarts(place, len, tmp1);
+            shiftRight(fill, len, tmp1);
+            for (int i = 0; i < words; i++) place[i] &= ~tmp1[i];
+            shiftLeft(fill, 1, tmp1);
+            for (int i = 0; i < words; i++) place[i] &= ~tmp1[i] & reach[i];
+
+            shiftLeft(place, len, tmp1);
+            smear(tmp1, tmp3, gaps[j + 1]);
+            for (int i = 0; i < words; i++) gaps[j + 1][i] &= tmp3[i];
+            shiftLeft(place, len + 1, tmp1);
+            smear(tmp1, tmp3, reach);
+        }
+    }
+
+    /**
+     * Multi-word version of smear(seeds, pass). Result may be written over seeds.
+     */
+    private void smear(long[] seeds, long[] pass, long[] result) {
+        long carry = 0;
+        for (int i = 0; i < words; i++) {
+            long a = seeds[i] & pass[i];
+            long sum1 = a + pass[i];
+            long sum2 = sum1 + carry;
+            carry = (Long.compareUnsigned(sum1, a) < 0 || Long.compareUnsigned(sum2, sum1) < 0) ? 1 : 0;
+            result[i] = ((sum2 ^ pass[i]) | seeds[i]) & topMask[i];
+        }
+    }
+
+    /**
+     * Multi-word version of runStarts, works in place.
+     */
+    private void runStarts(long[] mask, int len, long[] tmp) {
+        int covered = 1;
+        while (covered < len) {
+            int step = Math.min(covered, len - covered);
+            shiftRight(mask, step, tmp);
+            for (int i = 0; i < words; i++) mask[i] &= tmp[i];
+            covered += step;
+        }
+    }
+
+    /**
+     * Multi-word version of cover, works in place.
+     */
+    private void cover(long[] starts, int len, long[] tmp) {
+        int covered = 1;
+        while (covered < len) {
+            int step = Math.min(covered, len - covered);
+            shiftLeft(starts, step, tmp);
+            for (int i = 0; i < words; i++) starts[i] |= tmp[i];
+            covered += step;
+        }
+    }
+
+    /**
+     * Shifts bits towards higher positions. Result may be written over source.
+     */
+    private void shiftLeft(long[] src, int amount, long[] dst) {
+        int wordShift = amount / 64;
+        int bitShift = amount % 64;
+        for (int i = words - 1; i >= 0; i--) {
+            int j = i - wordShift;
+            long v = 0;
+            if (j >= 0) {
+                v = src[j] << bitShift;
+                if (bitShift > 0 && j > 0) v |= src[j - 1] >>> (64 - bitShift);
+            }
+            dst[i] = v & topMask[i];
+        }
+    }
+
+    /**
+     * Shifts bits towards lower positions. Result may be written over source.
+     */
+    private void shiftRight(long[] src, int amount, long[] dst) {
+        int wordShift = amount / 64;
+        int bitShift = amount % 64;
+        for (int i = 0; i < words; i++) {
+            int j = i + wordShift;
+            long v = 0;
+            if (j < words) {
+                v = src[j] >>> bitShift;
+                if (bitShift > 0 && j + 1 < words) v |= src[j + 1] << (64 - bitShift);
+            }
+            dst[i] = v;
+        }
+    }
+
+    /**
+     * Moves bit b to position n-1-b. Result must not be written over source.
+     */
+    private void reverse(long[] src, int n, long[] dst) {
+        for (int i = 0; i < words; i++) {
+            dst[i] = Long.reverse(src[words - 1 - i]);
+        }
+        shiftRight(dst, 64 * words - n, dst);
+    }
+
+    private boolean isZero(long[] x) {
+        for (int i = 0; i < words; i++) {
+            if (x[i] != 0) return false;
+        }
+        return true;
+    }
+
+    private void clear(long[] x) {
+        for (int i = 0; i < words; i++) x[i] = 0;
+    }
+}
@@ -0,0 +1,126 @@
+package io.github.fedimser.nonolab;
+
+import io.github.fedimser.nonolab.Solver.CellState;
+
+/**
+ * Built-in branching strategies.
+ */
+public enum Branching implements BranchingStrategy {
+    /**
+     * First not decided cell in column-major order.
+     */
+    FIRST_CELL {
+        @Override
+        public int chooseCell(Grid grid, NonogramDescription description, Solver solver) {
+            for (int x = 0; x < grid.getWidth(); x++) {
+                int y = grid.findUndecidedInColumn(x);
+                if (y != -1) return y * grid.getWidth() + x;
+            }
+            throw new IllegalStateException("All cells are decided.");
+        }
+    },
+
+    /**
+     * First not decided cell of the line with fewest not decided cells.
+     */
+    MOST_CONSTRAINED_LINE {
+        @Override
+        public int chooseCell(Grid grid, NonogramDescription description, Solver solver) {
+            int line = findConstrainedLines(grid, 1)[0];
+            return firstUndecided(grid, line);
+        }
+    },
+
+    /**
+     * Cell whose both values decide most cells after propagation.
+     * Only cells of a few most constrained lines are probed.
+     */
+    MAX_PROPAGATION {
+        private static final int PROBED_LINES = 4;
+
+        @Override
+        public int chooseCell(Grid grid, NonogramDescription description, Solver solver) {
+            int width = grid.getWidth();
+            int bestCell = -1;
+            long bestScore = -1;
+            for (int line : findConstrainedLines(grid, PROBED_LINES)) {
+                if (line == -1) break;
+                boolean isColumn = line < width;
+                int index = isColumn ? line : line - width;
+                int length = isColumn ? grid.getHeight() : width;
+                for (int pos = 0; pos < length; pos++) {
+                    int x = isColumn ? index : pos;
+                    int y = isColumn ? pos : index;
+                    if (grid.getCell(x, y) != CellState.NOT_DECIDED) continue;
+                    int filled = solver.probe(x, y, CellState.FILLED);
+                    int empty = solver.probe(x, y, CellState.EMPTY);
+                    if (filled == -1 || empty == -1) {
+                        // One of branches fails at once.
+                        return y * width + x;
+                    }
+                    long score = (long) (filled + 1) * (empty + 1);
+                    if (score > bestScore) {
+                        bestScore = score;
+                        bestCell = y * width + x;
+                    }
+                }
+            }
+            return bestCell;
+        }
+    };
+
+    /**
+     * Finds lines with fewest not decided cells, but at least one.
+     * Lines 0..width-1 are columns, lines width..width+height-1 are rows.
+     * @return Lines ordered by number of not decided cells, padded with -1.
+     */
+    private static int[] findConstrainedLines(Grid grid, int count) {
+        int width = grid.getWidth();
+        int height = grid.getHeight();
+        int[] lines = new int[count];
+        int[] undecided = new int[count];
+        for (int i = 0; i < count; i++) {
+            lines[i] = -1;
+            undecided[i] = Integer.MAX_VALUE;
+        }
+        for (int line = 0; line < width + height; line++) {
+            int cnt = countUndecided(grid, line);
+            if (cnt == 0 || cnt >= undecided[count - 1]) continue;
+            int pos = count - 1;
+            while (pos > 0 && undecided[pos - 1] > cnt) {
+                lines[pos] = lines[pos - 1];
+                undecided[pos] = undecided[pos - 1];
+                pos--;
+            }
+            lines[pos] = line;
+            undecided[pos] = cnt;
+        }
+        return lines;
+    }
+
+    private static int countUndecided(Grid grid, int line) {
+        int width = grid.getWidth();
+        boolean isColumn = line < width;
+        int index = isColumn ? line : line - width;
+        int length = isColumn ? grid.getHeight() : width;
+        int known = 0;
+        for (int i = 0; i < (length + 63) / 64; i++) {
+            known += Long.bitCount(isColumn
+                    ? grid.getColumnFilled(index, i) | grid.getColumnEmpty(index, i)
+                    : grid.getRowFilled(index, i) | grid.getRowEmpty(index, i));
+        }
+        return length - known;
+    }
+
+    private static int firstUndecided(Grid grid, int line) {
+        int width = grid.getWidth();
+        if (line < width) {
+            return grid.findUndecidedInColumn(line) * width + line;
+        }
+        int y = line - width;
+        for (int x = 0; x < width; x++) {
+            if (grid.getCell(x, y) == CellState.NOT_DECIDED) return y * width + x;
+        }
+        throw new IllegalStateException("All cells are decided.");
+    }
+}
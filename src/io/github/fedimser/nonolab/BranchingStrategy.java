@@ -0,0 +1,13 @@
+package io.github.fedimser.nonolab;
+
+/**
+ * Chooses cell to make a guess about, when line solving can't decide anything more.
+ */
+public interface BranchingStrategy {
+    /**
+     * Called only when grid has at least one not decided cell.
+     * @param solver Solver which makes the guess. Can be used to probe cells.
+     * @return Index y*width+x of not decided cell.
+     */
+    int chooseCell(Grid grid, NonogramDescription description, Solver solver);
+}
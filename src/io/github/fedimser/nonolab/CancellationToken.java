@@ -0,0 +1,16 @@
+package io.github.fedimser.nonolab;
+
+/**
+ * Flag which tells running searches to stop. It can be shared by many solvers and set from any thread.
+ */
+public class CancellationToken {
+    private volatile boolean cancelled;
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
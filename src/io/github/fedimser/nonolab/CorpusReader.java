@@ -0,0 +1,147 @@
+package io.github.fedimser.nonolab;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads binary corpus file written by {@link CorpusWriter}.
+ * File is memory-mapped, and puzzles are decoded straight from the mapping:
+ * any puzzle is found through index in constant time, and iteration goes through records one after another.
+ * Files up to 2 GB are supported.
+ */
+public class CorpusReader implements Iterable<NonFileReader.Puzzle>, Closeable {
+    private final FileChannel channel;
+    private final ByteBuffer data;
+    private final int count;
+    private final int indexOffset;
+
+    public CorpusReader(File file) throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) throw new IOException("Corpus file is larger than 2 GB: " + file + ".");
+            if (size < CorpusWriter.HEADER_SIZE) throw new IOException("Not a corpus file: " + file + ".");
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+            if (data.getInt(0) != CorpusWriter.MAGIC) throw new IOException("Not a corpus file: " + file + ".");
+            if (data.getInt(4) != CorpusWriter.VERSION) {
+                throw new IOException("Unsupported corpus version " + data.getInt(4) + ": " + file + ".");
+            }
+            count = data.getInt(8);
+            long index = data.getLong(12);
+            if (count < 0 || index < CorpusWriter.HEADER_SIZE || index + 8L * count > size) {
+                throw new IOException("Corpus file is corrupted: " + file + ".");
+            }
+            indexOffset = (int) index;
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @return Puzzle with given number, counting from 0.
+     */
+    public NonFileReader.Puzzle get(int n) {
+        if (n < 0 || n >= count) throw new IndexOutOfBoundsException("No puzzle " + n + ", corpus has " + count + ".");
+        ByteBuffer record = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        record.position((int) data.getLong(indexOffset + 8 * n));
+        return readPuzzle(record);
+    }
+
+    /**
+     * @return Iterator over puzzles in order, which reads records sequentially.
+     */
+    @Override
+    public Iterator<NonFileReader.Puzzle> iterator() {
+        ByteBuffer records = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        records.position(CorpusWriter.HEADER_SIZE);
+        return new Iterator<NonFileReader.Puzzle>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < count;
+            }
+
+            @Override
+            public NonFileReader.Puzzle next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                next++;
+                return readPuzzle(records);
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Writes every puzzle to its own .non file in given directory, named by its number.
+     */
+    public void toNonFiles(File dir) throws IOException {
+        int n = 0;
+        for (NonFileReader.Puzzle puzzle : this) {
+            File file = new File(dir, String.format("%06d.non", n++));
+            puzzle.getDescription().writeToFile(file);
+            if (puzzle.getGoal() != null) puzzle.getGoal().appendGoal(file);
+        }
+    }
+
+    private static NonFileReader.Puzzle readPuzzle(ByteBuffer in) {
+        try {
+            int width = readVarint(in);
+            int height = readVarint(in);
+            int flags = readVarint(in);
+            NonogramDescription.Lines columns = new NonogramDescription.Lines();
+            for (int x = 0; x < width; x++) readClues(in, columns);
+            NonogramDescription.Lines rows = new NonogramDescription.Lines();
+            for (int y = 0; y < height; y++) readClues(in, rows);
+
+            NonogramSolution goal = null;
+            if ((flags & CorpusWriter.FLAG_GOAL) != 0) {
+                goal = new NonogramSolution(width, height);
+                int bits = 0;
+                int index = 0;
+                for (int y = 0; y < height; y++) {
+                    for (int x = 0; x < width; x++) {
+                        if (index % 8 == 0) bits = in.get();
+                        if ((bits & (1 << (index % 8))) != 0) goal.SetPixel(x, y, true);
+                        index++;
+                    }
+                }
+            }
+            return new NonFileReader.Puzzle(new NonogramDescription(columns, rows), goal);
+        } catch (BufferUnderflowException ex) {
+            throw new IllegalStateException("Corpus record is truncated.", ex);
+        }
+    }
+
+    private static void readClues(ByteBuffer in, NonogramDescription.Lines lines) {
+        int size = readVarint(in);
+        for (int i = 0; i < size; i++) lines.addClue(readVarint(in));
+        lines.endLine();
+    }
+
+    private static int readVarint(ByteBuffer in) {
+        int ans = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            ans |= (b & 0x7F) << shift;
+            if (b >= 0) return ans;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package io.github.fedimser.nonolab;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes puzzles to binary corpus file, which is read by {@link CorpusReader}.
+ *
+ * <p>File is little-endian. Header has magic "NONC", version and number of puzzles (ints) and offset of index (long).
+ * Then go puzzle records, and then index, which has offset of each record (long).
+ * Record has width, height and flags, then number of clues and clues of each column and then of each row,
+ * all of them as varints (7 bits per byte, lowest first). If flags has {@link #FLAG_GOAL},
+ * goal follows as bits of pixels row by row, lowest bit of byte first.
+ */
+public class CorpusWriter implements Closeable {
+    static final int MAGIC = 0x434E4F4E;  // "NONC".
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 20;
+    static final int FLAG_GOAL = 1;
+
+    private final FileChannel channel;
+    private final long maxFileSize;
+    private ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+    private long position = HEADER_SIZE;  // Position in file of buffer start.
+    private long[] offsets = new long[64];
+    private int count;
+
+    public CorpusWriter(File file) throws IOException {
+        this(file, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param maxFileSize Size of file, with index, which can't be exceeded. {@link CorpusReader} reads files up to 2 GB.
+     */
+    CorpusWriter(File file, long maxFileSize) throws IOException {
+        this.maxFileSize = maxFileSize;
+        channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * Appends puzzle. Throws if file with it could get too large for {@link CorpusReader}, then file stays valid.
+     * @param goal Picture to store with the puzzle, or null.
+     */
+    public void add(NonogramDescription description, NonogramSolution goal) throws IOException {
+        int width = description.getWidth();
+        int height = description.getHeight();
+        long maxSize = 15 + (long) (width + height) * 5 + (long) width * height / 8 + 1
+                + 5L * description.getClues().length;
+        if (position + buffer.position() + maxSize + 8L * (count + 1) > maxFileSize) {
+            throw new IOException("Corpus file can't be larger than " + maxFileSize + " bytes.");
+        }
+        if (maxSize > buffer.remaining()) flush();
+        if (maxSize > buffer.capacity()) {
+            buffer = ByteBuffer.allocate((int) Math.min(Integer.MAX_VALUE - 8, maxSize)).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        if (count == offsets.length) offsets = Arrays.copyOf(offsets, 2 * count);
+        offsets[count++] = position + buffer.position();
+        writeVarint(width);
+        writeVarint(height);
+        writeVarint(goal != null ? FLAG_GOAL : 0);
+        int[] clues = description.getClues();
+        for (int line = 0; line < width + height; line++) {
+            int start = description.getClueStart(line);
+            int clueCount = description.getClueCount(line);
+            writeVarint(clueCount);
+            for (int j = start; j < start + clueCount; j++) writeVarint(clues[j]);
+        }
+        if (goal != null) {
+            int bits = 0;
+            int filled = 0;
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    if (goal.getPixel(x, y)) bits |= 1 << filled;
+                    if (++filled == 8) {
+                        buffer.put((byte) bits);
+                        bits = 0;
+                        filled = 0;
+                    }
+                }
+            }
+            if (filled > 0) buffer.put((byte) bits);
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Writes index and header and closes file.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+            long indexOffset = position;
+            ByteBuffer index = ByteBuffer.allocate(8 * count).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < count; i++) index.putLong(offsets[i]);
+            index.flip();
+            writeFully(index, indexOffset);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(count).putLong(indexOffset);
+            header.flip();
+            writeFully(header, 0);
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Converts puzzles from .non files, including all puzzles of multi-puzzle files, to corpus file.
+     * @return Number of puzzles.
+     */
+    public static int fromNonFiles(List<File> files, File corpus) throws IOException {
+        try (CorpusWriter writer = new CorpusWriter(corpus)) {
+            for (File file : files) {
+                try (NonFileReader reader = new NonFileReader(file)) {
+                    NonFileReader.Puzzle puzzle;
+                    while ((puzzle = reader.next()) != null) writer.add(puzzle.getDescription(), puzzle.getGoal());
+                }
+            }
+            return writer.size();
+        }
+    }
+
+    private void writeVarint(int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        int length = buffer.remaining();
+        writeFully(buffer, position);
+        position += length;
+        buffer.clear();
+    }
+
+    private void writeFully(ByteBuffer data, long offset) throws IOException {
+        while (data.hasRemaining()) offset += channel.write(data, offset);
+    }
+}
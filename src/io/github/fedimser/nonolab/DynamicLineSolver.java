@@ -0,0 +1,160 @@
+package io.github.fedimser.nonolab;
+
+import io.github.fedimser.nonolab.util.BitArray;
+
+/**
+ * Line solver based on left/right reachability.
+ * Works in O(length * clues) time.
+ *
+ * <p>fwd[j][i] is true if first j blocks can be placed in cells [0, i).
+ * bwd[j][i] is true if blocks j, j+1, ... can be placed in cells [i, length).
+ * Cell can be empty if for some j it separates such two placements.
+ * Block j can be placed at given position if there are placements of blocks on both sides of it.
+ */
+public class DynamicLineSolver implements LineSolver {
+    private boolean[] fwd = new boolean[0];
+    private boolean[] bwd = new boolean[0];
+    private int[] emptyPrefix = new int[0];
+    private int[] fillCover = new int[0];
+    private boolean[] canBeEmpty = new boolean[0];
+
+    private BitArray knownFilled;
+    private BitArray knownEmpty;
+    private int length;
+
+    @Override
+    public LineSolver newInstance() {
+        return new DynamicLineSolver();
+    }
+
+    @Override
+    public boolean solve(int[] clues, int start, int count, BitArray filled, BitArray empty) {
+        knownFilled = filled;
+        knownEmpty = empty;
+        length = filled.getLength();
+        int n = length;
+        int k = count;
+        int stride = n + 1;
+        ensureCapacity((k + 1) * stride, n);
+
+        // emptyPrefix[i] is number of known empty cells in [0, i).
+        emptyPrefix[0] = 0;
+        for (int i = 0; i < n; i++) {
+            emptyPrefix[i + 1] = emptyPrefix[i] + (empty.getBit(i) ? 1 : 0);
+        }
+
+        // Forward pass.
+        fwd[0] = true;
+        for (int i = 1; i <= n; i++) {
+            fwd[i] = fwd[i - 1] && !filled.getBit(i - 1);
+        }
+        for (int j = 1; j <= k; j++) {
+            int len = clues[start + j - 1];
+            int row = j * stride;
+            fwd[row] = false;
+            for (int i = 1; i <= n; i++) {
+                boolean ok = fwd[row + i - 1] && !filled.getBit(i - 1);
+                if (!ok) {
+                    int s = i - len;
+                    ok = s >= 0 && canPlace(s, len) && leftFits(j, s, stride);
+                }
+                fwd[row + i] = ok;
+            }
+        }
+
+        if (!fwd[k * stride + n]) {
+            return false;
+        }
+
+        // Backward pass.
+        int lastRow = k * stride;
+        bwd[lastRow + n] = true;
+        for (int i = n - 1; i >= 0; i--) {
+            bwd[lastRow + i] = bwd[lastRow + i + 1] && !filled.getBit(i);
+        }
+        for (int j = k - 1; j >= 0; j--) {
+            int len = clues[start + j];
+            int row = j * stride;
+            bwd[row + n] = false;
+            for (int i = n - 1; i >= 0; i--) {
+                boolean ok = bwd[row + i + 1] && !filled.getBit(i);
+                if (!ok) {
+                    ok = canPlace(i, len) && rightFits(j, i + len, stride);
+                }
+                bwd[row + i] = ok;
+            }
+        }
+
+        // Collect cells which can be empty.
+        for (int i = 0; i < n; i++) {
+            canBeEmpty[i] = false;
+            if (filled.getBit(i)) continue;
+            for (int j = 0; j <= k; j++) {
+                if (fwd[j * stride + i] && bwd[j * stride + i + 1]) {
+                    canBeEmpty[i] = true;
+                    break;
+                }
+            }
+        }
+
+        // Collect cells which can be filled.
+        for (int i = 0; i <= n; i++) fillCover[i] = 0;
+        for (int j = 0; j < k; j++) {
+            int len = clues[start + j];
+            for (int s = 0; s + len <= n; s++) {
+                if (canPlace(s, len) && leftFits(j + 1, s, stride) && rightFits(j, s + len, stride)) {
+                    fillCover[s]++;
+                    fillCover[s + len]--;
+                }
+            }
+        }
+
+        int cover = 0;
+        for (int i = 0; i < n; i++) {
+            cover += fillCover[i];
+            if (!canBeEmpty[i]) {
+                filled.setBit(i, true);
+            } else if (cover == 0) {
+                empty.setBit(i, true);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return True if cells [s, s+len) can be filled and cell after them can be empty.
+     */
+    private boolean canPlace(int s, int len) {
+        if (s + len > length) return false;
+        if (emptyPrefix[s + len] != emptyPrefix[s]) return false;
+        return s + len == length || !knownFilled.getBit(s + len);
+    }
+
+    /**
+     * @return True if blocks before block j-1 can be placed left to block j-1 starting at s.
+     */
+    private boolean leftFits(int j, int s, int stride) {
+        if (s == 0) return j == 1;
+        return !knownFilled.getBit(s - 1) && fwd[(j - 1) * stride + s - 1];
+    }
+
+    /**
+     * @return True if blocks after block j can be placed right to block j ending at e (exclusive).
+     */
+    private boolean rightFits(int j, int e, int stride) {
+        if (e == length) return bwd[(j + 1) * stride + length];
+        return bwd[(j + 1) * stride + e + 1];
+    }
+
+    private void ensureCapacity(int tableSize, int n) {
+        if (fwd.length < tableSize) {
+            fwd = new boolean[tableSize];
+            bwd = new boolean[tableSize];
+        }
+        if (emptyPrefix.length < n + 1) {
+            emptyPrefix = new int[n + 1];
+            fillCover = new int[n + 1];
+            canBeEmpty = new boolean[n + 1];
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package io.github.fedimser.nonolab;
+
+import io.github.fedimser.nonolab.util.BitArray;
+
+/**
+ * Line solver which lists all legal placements of blocks.
+ * Works in exponential time, kept as a reference implementation.
+ */
+public class EnumerationLineSolver implements LineSolver {
+    private BitArray curRowKnownFilled;
+    private BitArray curRowKnownEmpty;
+    private BitArray curRowBits;
+    private BitArray curRowFilled;  // True if necessarily filled.
+    private BitArray curRowNotEmpty;  // False if necessarily empty.
+    private int curRowLength;
+    private int[] curClues;
+    private int curCluesStart;
+    private int curCluesCount;
+
+    @Override
+    public LineSolver newInstance() {
+        return new EnumerationLineSolver();
+    }
+
+    @Override
+    public boolean solve(int[] clues, int start, int count, BitArray filled, BitArray empty) {
+        curClues = clues;
+        curCluesStart = start;
+        curCluesCount = count;
+        curRowKnownFilled = filled;
+        curRowKnownEmpty = empty;
+        curRowLength = filled.getLength();
+        curRowFilled = new BitArray(curRowLength);
+        curRowNotEmpty= new BitArray(curRowLength);
+        for(int x=0;x<curRowLength;x++) {
+            curRowFilled.setBit(x, true);
+        }
+        curRowBits = new BitArray(curRowLength);
+
+        if(!solveRowRec(0,0)) {
+            return false;
+        }
+
+        for(int x=0;x<curRowLength;x++) {
+            if(curRowFilled.getBit(x)) {
+                filled.setBit(x, true);
+            } else if(!curRowNotEmpty.getBit(x)) {
+                empty.setBit(x, true);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Recursively builds all filling variants, which correspond to given description
+     *   and existing partial filling.
+     * @param pos Position of first not determined cell.
+     * @param numsUsed How many numbers in description already used.
+     * @return True if there is at least one feasible solution.
+     */
+    private boolean solveRowRec(int pos, int numsUsed) {
+        if(numsUsed == curCluesCount) {
+            assert(pos<=curRowLength);
+            for(int x=pos; x < curRowLength;x++) {
+                if(curRowKnownFilled.getBit(x)) return false;
+            }
+
+            curRowFilled.andWith(curRowBits);
+            curRowNotEmpty.orWith(curRowBits);
+
+            return true;
+        }
+
+        int curLen = curClues[curCluesStart + numsUsed];
+
+        // Go through all possible starts.
+        boolean feasible = false;
+        for(int x=pos;x < curRowLength;x++) {
+            if (x+curLen>curRowLength) break;
+
+            // Check that it doesn't have empty cells inside.
+            boolean canBeFilled = true;
+            for(int i=x;i<x+curLen;i++) {
+                if(curRowKnownEmpty.getBit(i)) {
+                    canBeFilled = false;
+                    break;
+                }
+            }
+
+            // Check that right after his group cell can be empty.
+            if(canBeFilled && x+curLen<curRowLength && curRowKnownFilled.getBit(x+curLen)) {
+                canBeFilled = false;
+            }
+
+            if(canBeFilled) {
+                for (int i = x; i < x + curLen; i++) curRowBits.setBit(i, true);
+                int emptyCell = ((x+curLen==curRowLength)?0:1);
+                if (solveRowRec(x + curLen +  emptyCell, numsUsed + 1)) feasible = true;
+                for (int i = x; i < x + curLen; i++) curRowBits.setBit(i, false);
+            }
+
+            if(curRowKnownFilled.getBit(x)) break;
+        }
+
+        return feasible;
+    }
+}
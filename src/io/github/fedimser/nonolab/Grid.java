@@ -0,0 +1,253 @@
+package io.github.fedimser.nonolab;
+
+import io.github.fedimser.nonolab.Solver.CellState;
+import io.github.fedimser.nonolab.util.BitArray;
+import io.github.fedimser.nonolab.util.LongArray;
+import io.github.fedimser.nonolab.util.Storage;
+
+/**
+ * Partially solved nonogram.
+ * Each cell is stored as two bits (filled, empty) in two bitplanes. Both bitplanes are kept
+ * in row-major and in column-major order, so every row and every column is a run of whole words.
+ *
+ * <p>Cells which become decided are recorded in a trail, so search can return to earlier state
+ * by undoing only cells changed since then, instead of keeping copies of the whole grid.
+ *
+ * <p>Bitplanes and trail are allocated in given {@link Storage}, so grids of very large puzzles
+ * can be kept off heap.
+ */
+public class Grid {
+    private final int width;
+    private final int height;
+    private final int rowWords;  // Words per row.
+    private final int columnWords;  // Words per column.
+    private final Storage storage;
+    private final LongArray rowFilled;
+    private final LongArray rowEmpty;
+    private final LongArray columnFilled;
+    private final LongArray columnEmpty;
+    private final LongArray trail;  // Int indices y*width+x of decided cells, in order of decision.
+    private int trailSize;
+    private int peakTrailSize;
+
+    /**
+     * Creates grid with all cells not decided.
+     */
+    public Grid(int width, int height) {
+        this(width, height, Storage.HEAP);
+    }
+
+    /**
+     * Creates grid with all cells not decided, kept in given storage.
+     * @throws IllegalArgumentException If grid has more than {@link Integer#MAX_VALUE} cells,
+     * since cells and trail are indexed by int.
+     */
+    public Grid(int width, int height, Storage storage) {
+        if ((long) width * height > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Grid is too large: " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        this.rowWords = (width + 63) / 64;
+        this.columnWords = (height + 63) / 64;
+        this.storage = storage;
+        this.rowFilled = storage.allocate((long) height * rowWords);
+        this.rowEmpty = storage.allocate((long) height * rowWords);
+        this.columnFilled = storage.allocate((long) width * columnWords);
+        this.columnEmpty = storage.allocate((long) width * columnWords);
+        this.trail = storage.allocate(((long) width * height + 1) / 2);
+    }
+
+    private Grid(Grid other) {
+        this.width = other.width;
+        this.height = other.height;
+        this.rowWords = other.rowWords;
+        this.columnWords = other.columnWords;
+        this.storage = other.storage;
+        this.rowFilled = other.rowFilled.copy();
+        this.rowEmpty = other.rowEmpty.copy();
+        this.columnFilled = other.columnFilled.copy();
+        this.columnEmpty = other.columnEmpty.copy();
+        this.trail = other.trail.copy();
+        this.trailSize = other.trailSize;
+        this.peakTrailSize = other.peakTrailSize;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public Storage getStorage() {
+        return storage;
+    }
+
+    public CellState getCell(int x, int y) {
+        int index = y * rowWords + x / 64;
+        long bit = 1L << (x % 64);
+        if ((rowFilled.get(index) & bit) != 0) return CellState.FILLED;
+        if ((rowEmpty.get(index) & bit) != 0) return CellState.EMPTY;
+        return CellState.NOT_DECIDED;
+    }
+
+    /**
+     * Sets state of cell. If cell was not decided and becomes decided, it is recorded in the trail.
+     * Decided cells should be made not decided again only with {@link #undo} or {@link #clear}.
+     */
+    public void setCell(int x, int y, CellState state) {
+        int rowIndex = y * rowWords + x / 64;
+        long rowBit = 1L << (x % 64);
+        int columnIndex = x * columnWords + y / 64;
+        long columnBit = 1L << (y % 64);
+
+        long rowFilledWord = rowFilled.get(rowIndex);
+        long rowEmptyWord = rowEmpty.get(rowIndex);
+        if (state != CellState.NOT_DECIDED && ((rowFilledWord | rowEmptyWord) & rowBit) == 0) {
+            trail.setInt(trailSize++, y * width + x);
+            if (trailSize > peakTrailSize) peakTrailSize = trailSize;
+        }
+        boolean filled = (state == CellState.FILLED);
+        boolean empty = (state == CellState.EMPTY);
+        rowFilled.set(rowIndex, filled ? rowFilledWord | rowBit : rowFilledWord & ~rowBit);
+        rowEmpty.set(rowIndex, empty ? rowEmptyWord | rowBit : rowEmptyWord & ~rowBit);
+        long columnFilledWord = columnFilled.get(columnIndex);
+        long columnEmptyWord = columnEmpty.get(columnIndex);
+        columnFilled.set(columnIndex, filled ? columnFilledWord | columnBit : columnFilledWord & ~columnBit);
+        columnEmpty.set(columnIndex, empty ? columnEmptyWord | columnBit : columnEmptyWord & ~columnBit);
+    }
+
+    /**
+     * Copies known cells of row y to given bit arrays of length width.
+     */
+    public void readRow(int y, BitArray filled, BitArray empty) {
+        for (int i = 0; i < rowWords; i++) {
+            filled.setChunk(i, rowFilled.get(y * rowWords + i));
+            empty.setChunk(i, rowEmpty.get(y * rowWords + i));
+        }
+    }
+
+    /**
+     * Copies known cells of column x to given bit arrays of length height.
+     */
+    public void readColumn(int x, BitArray filled, BitArray empty) {
+        for (int i = 0; i < columnWords; i++) {
+            filled.setChunk(i, columnFilled.get(x * columnWords + i));
+            empty.setChunk(i, columnEmpty.get(x * columnWords + i));
+        }
+    }
+
+    /**
+     * @return Filled cells x in [64*i, 64*i+63] of row y.
+     */
+    public long getRowFilled(int y, int i) {
+        return rowFilled.get(y * rowWords + i);
+    }
+
+    /**
+     * @return Empty cells x in [64*i, 64*i+63] of row y.
+     */
+    public long getRowEmpty(int y, int i) {
+        return rowEmpty.get(y * rowWords + i);
+    }
+
+    /**
+     * @return Filled cells y in [64*i, 64*i+63] of column x.
+     */
+    public long getColumnFilled(int x, int i) {
+        return columnFilled.get(x * columnWords + i);
+    }
+
+    /**
+     * @return Empty cells y in [64*i, 64*i+63] of column x.
+     */
+    public long getColumnEmpty(int x, int i) {
+        return columnEmpty.get(x * columnWords + i);
+    }
+
+    /**
+     * @return Smallest y such that cell (x, y) is not decided, or -1 if whole column is decided.
+     */
+    public int findUndecidedInColumn(int x) {
+        for (int i = 0; i < columnWords; i++) {
+            long known = columnFilled.get(x * columnWords + i) | columnEmpty.get(x * columnWords + i);
+            if (known != -1L) {
+                int y = 64 * i + Long.numberOfTrailingZeros(~known);
+                return (y < height) ? y : -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return True if all cells are decided.
+     */
+    public boolean isSolved() {
+        return trailSize == width * height;
+    }
+
+    /**
+     * @return Number of cells in the trail. Can be passed to {@link #undo} to return to current state.
+     */
+    public int getTrailSize() {
+        return trailSize;
+    }
+
+    /**
+     * @return Index y*width+x of i-th cell in the trail.
+     */
+    public int getTrailCell(int i) {
+        return trail.getInt(i);
+    }
+
+    /**
+     * Makes not decided all cells which were decided after trail had given size.
+     */
+    public void undo(int size) {
+        while (trailSize > size) {
+            trailSize--;
+            int cell = trail.getInt(trailSize);
+            int x = cell % width;
+            int y = cell / width;
+            int rowIndex = y * rowWords + x / 64;
+            int columnIndex = x * columnWords + y / 64;
+            rowFilled.set(rowIndex, rowFilled.get(rowIndex) & ~(1L << (x % 64)));
+            rowEmpty.set(rowIndex, rowEmpty.get(rowIndex) & ~(1L << (x % 64)));
+            columnFilled.set(columnIndex, columnFilled.get(columnIndex) & ~(1L << (y % 64)));
+            columnEmpty.set(columnIndex, columnEmpty.get(columnIndex) & ~(1L << (y % 64)));
+        }
+    }
+
+    /**
+     * @return Largest trail size since grid was created.
+     */
+    public int getPeakTrailSize() {
+        return peakTrailSize;
+    }
+
+    /**
+     * @return Number of bytes allocated for bitplanes and trail. Trail has room for all cells up front,
+     * so this doesn't change while grid is used.
+     */
+    public long getMemoryUsage() {
+        return 8L * (rowFilled.length() + rowEmpty.length() + columnFilled.length() + columnEmpty.length()
+                + trail.length());
+    }
+
+    /**
+     * Makes all cells not decided.
+     */
+    public void clear() {
+        rowFilled.fill(0);
+        rowEmpty.fill(0);
+        columnFilled.fill(0);
+        columnEmpty.fill(0);
+        trailSize = 0;
+    }
+
+    public Grid copy() {
+        return new Grid(this);
+    }
+}
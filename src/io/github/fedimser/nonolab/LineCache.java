@@ -0,0 +1,203 @@
+package io.github.fedimser.nonolab;
+
+import io.github.fedimser.nonolab.util.BitArray;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of line solutions, keyed by description and known cells of the line.
+ * Can be shared by many solvers, including solvers running in different threads.
+ *
+ * <p>Entries are split into segments by hash, each segment is LRU-ordered and guarded by its own lock.
+ * Capacity is divided between segments, and when segment is full, its least recently used entry is evicted.
+ * So cache can evict entries before it holds capacity of them, but it never holds more.
+ */
+public class LineCache {
+    private static final int SEGMENTS = 16;
+    private static final int MAX_CLUE = 0xFFFF;
+    private static final long[] IMPOSSIBLE = new long[0];
+
+    private final int capacity;
+    private final Segment[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param capacity Maximal number of cached lines.
+     */
+    public LineCache(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("Capacity must be positive.");
+        this.capacity = capacity;
+        this.segments = new Segment[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(capacity / SEGMENTS + (i < capacity % SEGMENTS ? 1 : 0));
+        }
+    }
+
+    /**
+     * Same as {@link LineSolver#solve(int[], int, int, BitArray, BitArray)}, but takes result from cache if possible.
+     * On cache miss line is solved with given line solver and the result is stored.
+     */
+    public boolean solve(LineSolver lineSolver, int[] clues, int start, int count, BitArray filled, BitArray empty) {
+        Key key = Key.create(clues, start, count, filled, empty);
+        if (key == null) {
+            return lineSolver.solve(clues, start, count, filled, empty);
+        }
+        Segment segment = segments[(key.hash >>> 16 ^ key.hash) & (SEGMENTS - 1)];
+
+        long[] value;
+        synchronized (segment) {
+            value = segment.get(key);
+        }
+        if (value != null) {
+            hits.increment();
+            return applyValue(value, filled, empty);
+        }
+
+        misses.increment();
+        boolean feasible = lineSolver.solve(clues, start, count, filled, empty);
+        if (feasible) {
+            int chunks = filled.getChunksCount();
+            value = new long[2 * chunks];
+            for (int i = 0; i < chunks; i++) {
+                value[i] = filled.getChunk(i);
+                value[chunks + i] = empty.getChunk(i);
+            }
+        } else {
+            value = IMPOSSIBLE;
+        }
+        synchronized (segment) {
+            segment.put(key, value);
+        }
+        return feasible;
+    }
+
+    /**
+     * Same as above, for description given as a list of lengths of blocks.
+     */
+    public boolean solve(LineSolver lineSolver, List<Integer> description, BitArray filled, BitArray empty) {
+        int[] clues = new int[description.size()];
+        for (int j = 0; j < clues.length; j++) clues[j] = description.get(j);
+        return solve(lineSolver, clues, 0, clues.length, filled, empty);
+    }
+
+    private static boolean applyValue(long[] value, BitArray filled, BitArray empty) {
+        if (value == IMPOSSIBLE) return false;
+        int chunks = filled.getChunksCount();
+        for (int i = 0; i < chunks; i++) {
+            filled.setChunk(i, value[i]);
+            empty.setChunk(i, value[chunks + i]);
+        }
+        return true;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return Number of lines currently in cache.
+     */
+    public int size() {
+        int ans = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                ans += segment.size();
+            }
+        }
+        return ans;
+    }
+
+    /**
+     * Removes all entries and resets counters.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+    }
+
+    @SuppressWarnings("serial")  // Never serialized.
+    private class Segment extends LinkedHashMap<Key, long[]> {
+        private final int segmentCapacity;
+
+        Segment(int segmentCapacity) {
+            super(16, 0.75f, true);
+            this.segmentCapacity = segmentCapacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, long[]> eldest) {
+            if (size() > segmentCapacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Packed line: length and number of blocks, block lengths (4 per word), known filled and known empty cells.
+     */
+    private static class Key {
+        private final long[] data;
+        private final int hash;
+
+        private Key(long[] data) {
+            this.data = data;
+            this.hash = Arrays.hashCode(data);
+        }
+
+        static Key create(int[] clues, int start, int k, BitArray filled, BitArray empty) {
+            int length = filled.getLength();
+            if (length > MAX_CLUE) return null;
+            int clueWords = (k + 3) / 4;
+            int chunks = filled.getChunksCount();
+            long[] data = new long[1 + clueWords + 2 * chunks];
+            data[0] = ((long) length << 32) | k;
+            for (int j = 0; j < k; j++) {
+                data[1 + j / 4] |= ((long) clues[start + j]) << (16 * (j % 4));
+            }
+            for (int i = 0; i < chunks; i++) {
+                data[1 + clueWords + i] = filled.getChunk(i);
+                data[1 + clueWords + chunks + i] = empty.getChunk(i);
+            }
+            return new Key(data);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof Key)) return false;
+            Key key = (Key) obj;
+            return hash == key.hash && Arrays.equals(data, key.data);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package io.github.fedimser.nonolab;
+
+/**
+ * Priority queue of lines waiting to be solved.
+ * Each line is queued at most once, queuing it again only raises its priority.
+ * Lines are numbered from 0 to size-1.
+ */
+class LineQueue {
+    private int[] heap;  // Lines, line with highest priority first.
+    private int[] position;  // Index in heap, or -1 if line is not queued.
+    private int[] priority;
+    private int count;
+
+    LineQueue(int size) {
+        heap = new int[size];
+        position = new int[size];
+        priority = new int[size];
+        for (int i = 0; i < size; i++) position[i] = -1;
+    }
+
+    /**
+     * Queues line. If it is already queued, its priority becomes maximum of old and new one.
+     */
+    void add(int line, int prio) {
+        int pos = position[line];
+        if (pos == -1) {
+            priority[line] = prio;
+            heap[count] = line;
+            position[line] = count;
+            count++;
+            siftUp(count - 1);
+        } else if (prio > priority[line]) {
+            priority[line] = prio;
+            siftUp(pos);
+        }
+    }
+
+    /**
+     * Removes and returns line with highest priority.
+     */
+    int poll() {
+        int line = heap[0];
+        position[line] = -1;
+        count--;
+        if (count > 0) {
+            heap[0] = heap[count];
+            position[heap[0]] = 0;
+            siftDown(0);
+        }
+        return line;
+    }
+
+    /**
+     * Removes line from the queue, if it is there.
+     */
+    void remove(int line) {
+        int pos = position[line];
+        if (pos == -1) return;
+        position[line] = -1;
+        count--;
+        if (pos == count) return;
+        heap[pos] = heap[count];
+        position[heap[pos]] = pos;
+        siftUp(pos);
+        siftDown(pos);
+    }
+
+    boolean isEmpty() {
+        return count == 0;
+    }
+
+    boolean contains(int line) {
+        return position[line] != -1;
+    }
+
+    void clear() {
+        for (int i = 0; i < count; i++) position[heap[i]] = -1;
+        count = 0;
+    }
+
+    private void siftUp(int pos) {
+        int line = heap[pos];
+        while (pos > 0) {
+            int parent = (pos - 1) / 2;
+            if (priority[heap[parent]] >= priority[line]) break;
+            heap[pos] = heap[parent];
+            position[heap[pos]] = pos;
+            pos = parent;
+        }
+        heap[pos] = line;
+        position[line] = pos;
+    }
+
+    private void siftDown(int pos) {
+        int line = heap[pos];
+        while (true) {
+            int child = 2 * pos + 1;
+            if (child >= count) break;
+            if (child + 1 < count && priority[heap[child + 1]] > priority[heap[child]]) child++;
+            if (priority[heap[child]] <= priority[line]) break;
+            heap[pos] = heap[child];
+            position[heap[pos]] = pos;
+            pos = child;
+        }
+        heap[pos] = line;
+        position[line] = pos;
+    }
+}
@@ -0,0 +1,36 @@
+package io.github.fedimser.nonolab;
+
+import io.github.fedimser.nonolab.util.BitArray;
+
+import java.util.List;
+
+/**
+ * Deduces cells of a single line (row or column) from its description and already known cells.
+ */
+public interface LineSolver {
+    /**
+     * Finds all cells which have the same state in every filling of the line that agrees
+     * with description and with already known cells.
+     * @param clues Array holding lengths of blocks in the line, which is not modified.
+     * @param start Index of the first block of the line in clues.
+     * @param count Number of blocks in the line.
+     * @param filled Cells known to be filled. On success, all necessarily filled cells are added.
+     * @param empty Cells known to be empty. On success, all necessarily empty cells are added.
+     * @return False if line can't be filled according to description.
+     */
+    boolean solve(int[] clues, int start, int count, BitArray filled, BitArray empty);
+
+    /**
+     * Same as above, for description given as a list of lengths of blocks.
+     */
+    default boolean solve(List<Integer> description, BitArray filled, BitArray empty) {
+        int[] clues = new int[description.size()];
+        for (int j = 0; j < clues.length; j++) clues[j] = description.get(j);
+        return solve(clues, 0, clues.length, filled, empty);
+    }
+
+    /**
+     * @return New line solver of the same kind, which can be used concurrently with this one.
+     */
+    LineSolver newInstance();
+}
@@ -8,8 +8,13 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Scanner;
 import java.nio.file.Path;
 import java.util.stream.Collectors;
@@ -20,10 +25,29 @@ public class Main {
         "help - display help.",
         "solve <filename>.non - solve nonogram",
         "create <filename>.txt - create nonogram (from ASCII-art)",
-        "check <filename>.non - check uniqness of nonogram"
+        "check <filename>.non - check uniqness of nonogram",
+        "count <filename>.non [<limit>] - count solutions of nonogram, up to limit (default 1000)",
+        "batch [-threads <n>] [-timeout <ms>] [-format csv|json] [-out <report>] <directory or .non file>... - " +
+            "solve many nonograms and report status, time, search nodes and uniqueness",
+        "pack <corpus> <directory or .non file>... - convert .non files to binary corpus file",
+        "unpack <corpus> <directory> - convert binary corpus file to .non files",
+        "generate [-threads <n>] [-seed <seed>] [-density <d>] <corpus> <count> <width> <height> - " +
+            "generate random nonograms with unique solution to binary corpus file",
+        "images jpeg|png - set format of pictures saved by solve, create and check",
+        "poster <filename>.non <cell size> png|svg - solve nonogram and save pictures of any size for printing",
+        "branching <strategy> [<value order>] - set how solver guesses, strategies: " +
+            Arrays.toString(Branching.values()) + ", value orders: " + Arrays.toString(ValueOrder.values())
     );
 
+    private static Branching branching = Branching.FIRST_CELL;
+    private static ValueOrder valueOrder = ValueOrder.EMPTY_FIRST;
+    private static NonogramDrawer.Format imageFormat = NonogramDrawer.Format.JPEG;
+
     public static void main(String[] argv) {
+        if (argv.length > 0 && argv[0].equals("batch")) {
+            batch(argv);
+            return;
+        }
         System.out.println("*** Nonolab by fedimser ***");
         Scanner in = new Scanner(System.in);
         while(true){
@@ -38,12 +62,54 @@ public class Main {
                 create(input[1]);
             } else if(input[0].equals("check")) {
                 check(input[1]);
+            } else if(input[0].equals("count")) {
+                count(input[1], input.length > 2 ? Long.parseLong(input[2]) : 1000);
+            } else if(input[0].equals("batch")) {
+                batch(input);
+            } else if(input[0].equals("pack")) {
+                pack(input);
+            } else if(input[0].equals("unpack")) {
+                unpack(input);
+            } else if(input[0].equals("generate")) {
+                generate(input);
+            } else if(input[0].equals("poster")) {
+                poster(input);
+            } else if(input[0].equals("images")) {
+                setImageFormat(input);
+            } else if(input[0].equals("branching")) {
+                setBranching(input);
             } else {
                 System.out.println("Unknow command. Type help to see help.");
             }
         }
     }
 
+    private static void setBranching(String[] input) {
+        try {
+            if (input.length > 1) branching = Branching.valueOf(input[1].toUpperCase());
+            if (input.length > 2) valueOrder = ValueOrder.valueOf(input[2].toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            System.out.println("Unknown branching. Type help to see help.");
+        }
+        System.out.println("Branching: " + branching + ", value order: " + valueOrder);
+    }
+
+    private static void setImageFormat(String[] input) {
+        try {
+            if (input.length > 1) imageFormat = NonogramDrawer.Format.valueOf(input[1].toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            System.out.println("Unknown image format. Type help to see help.");
+        }
+        System.out.println("Image format: " + imageFormat);
+    }
+
+    private static Solver createSolver(NonogramDescription desc) {
+        Solver solver = new Solver(desc);
+        solver.setBranching(branching);
+        solver.setValueOrder(valueOrder);
+        return solver;
+    }
+
     private static void solve(String fileName) {
         File file = new File(fileName);
         NonogramDescription desc;
@@ -53,7 +119,7 @@ public class Main {
             ex.printStackTrace();
             return;
         }
-        Solver solver = new Solver(desc);
+        Solver solver = createSolver(desc);
         // solver.setVerbose(true);
         NonogramSolution sol = solver.solve();
         if(sol==null) {
@@ -62,6 +128,7 @@ public class Main {
         }
         String solAscii = sol.toString();
         System.out.println(solAscii);
+        System.out.println(solver.getStats());
 
         Path dir = file.getParentFile().toPath();
         String name = file.getName();
@@ -79,7 +146,7 @@ public class Main {
         }
 
         try{
-            NonogramDrawer.drawAll(sol, dir, name);
+            NonogramDrawer.drawAll(sol, dir, name, imageFormat);
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -112,7 +179,7 @@ public class Main {
 
         // Solve pictures.
         try{
-            NonogramDrawer.drawAll(sol, dir, name);
+            NonogramDrawer.drawAll(sol, dir, name, imageFormat);
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -129,7 +196,7 @@ public class Main {
             ex.printStackTrace();
             return;
         }
-        Solver solver = new Solver(desc);
+        Solver solver = createSolver(desc);
         NonogramSolution sol1 = solver.solve();
         if (sol1==null) {
             System.out.println("No solution.");
@@ -147,12 +214,160 @@ public class Main {
             String name = file.getName();
 
             try {
-                ImageIO.write(pic1, "jpg", dir.resolve(name + "_sol1.jpg").toFile());
-                ImageIO.write(pic2, "jpg", dir.resolve(name + "_sol2.jpg").toFile());
+                String extension = imageFormat.getExtension();
+                ImageIO.write(pic1, extension, dir.resolve(name + "_sol1." + extension).toFile());
+                ImageIO.write(pic2, extension, dir.resolve(name + "_sol2." + extension).toFile());
             } catch (IOException e) {
                 e.printStackTrace();
             }
         }
     }
 
+    private static void count(String fileName, long limit) {
+        NonogramDescription desc;
+        try {
+            desc = NonogramDescription.fromFile(new File(fileName));
+        } catch (IOException ex) {
+            ex.printStackTrace();
+            return;
+        }
+        long count = createSolver(desc).countSolutions(limit);
+        System.out.println((count == limit ? "At least " : "") + count + " solution(s).");
+    }
+
+    private static void batch(String[] input) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        long timeout = 0;
+        BatchSolver.Format format = BatchSolver.Format.CSV;
+        String out = null;
+        List<File> paths = new ArrayList<File>();
+        try {
+            for (int i = 1; i < input.length; i++) {
+                if (input[i].equals("-threads")) {
+                    threads = Integer.parseInt(input[++i]);
+                } else if (input[i].equals("-timeout")) {
+                    timeout = Long.parseLong(input[++i]);
+                } else if (input[i].equals("-format")) {
+                    format = BatchSolver.Format.valueOf(input[++i].toUpperCase());
+                } else if (input[i].equals("-out")) {
+                    out = input[++i];
+                } else {
+                    paths.add(new File(input[i]));
+                }
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException ex) {
+            System.out.println("Wrong arguments. Type help to see help.");
+            return;
+        }
+
+        BatchSolver batchSolver = new BatchSolver(threads, timeout);
+        batchSolver.setBranching(branching, valueOrder);
+        List<File> files = BatchSolver.listPuzzles(paths);
+        try {
+            Writer writer = (out == null) ? new PrintWriter(System.out) : new BufferedWriter(new FileWriter(out));
+            batchSolver.solveAll(files, writer, format);
+            if (out == null) {
+                writer.flush();
+            } else {
+                writer.close();
+            }
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    private static void pack(String[] input) {
+        if (input.length < 3) {
+            System.out.println("Wrong arguments. Type help to see help.");
+            return;
+        }
+        List<File> paths = new ArrayList<File>();
+        for (int i = 2; i < input.length; i++) paths.add(new File(input[i]));
+        try {
+            int count = CorpusWriter.fromNonFiles(BatchSolver.listPuzzles(paths), new File(input[1]));
+            System.out.println("Packed " + count + " nonogram(s).");
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    private static void unpack(String[] input) {
+        if (input.length != 3) {
+            System.out.println("Wrong arguments. Type help to see help.");
+            return;
+        }
+        try (CorpusReader reader = new CorpusReader(new File(input[1]))) {
+            File dir = new File(input[2]);
+            Files.createDirectories(dir.toPath());
+            reader.toNonFiles(dir);
+            System.out.println("Unpacked " + reader.size() + " nonogram(s).");
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    private static void poster(String[] input) {
+        PosterRenderer renderer;
+        PosterRenderer.Format format;
+        try {
+            renderer = new PosterRenderer(Integer.parseInt(input[2]));
+            format = PosterRenderer.Format.valueOf(input[3].toUpperCase());
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException ex) {
+            System.out.println("Wrong arguments. Type help to see help.");
+            return;
+        }
+        File file = new File(input[1]);
+        try {
+            NonogramSolution sol = createSolver(NonogramDescription.fromFile(file)).solve();
+            if (sol == null) {
+                System.out.println("No solution.");
+                return;
+            }
+            String name = file.getName();
+            if (name.endsWith(".non")) name = name.substring(0, name.length() - 4);
+            renderer.drawAll(sol, file.getAbsoluteFile().getParentFile().toPath(), name + "_poster", format);
+            System.out.println("Done!");
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    private static void generate(String[] input) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        Long seed = null;
+        Double density = null;
+        List<String> args = new ArrayList<String>();
+        PuzzleGenerator generator;
+        int count;
+        try {
+            for (int i = 1; i < input.length; i++) {
+                if (input[i].equals("-threads")) {
+                    threads = Integer.parseInt(input[++i]);
+                } else if (input[i].equals("-seed")) {
+                    seed = Long.parseLong(input[++i]);
+                } else if (input[i].equals("-density")) {
+                    density = Double.parseDouble(input[++i]);
+                } else {
+                    args.add(input[i]);
+                }
+            }
+            if (args.size() != 4) throw new IllegalArgumentException();
+            count = Integer.parseInt(args.get(1));
+            generator = new PuzzleGenerator(threads, Integer.parseInt(args.get(2)), Integer.parseInt(args.get(3)));
+            if (seed != null) generator.setSeed(seed);
+            if (density != null) generator.setDensity(density);
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException ex) {
+            System.out.println("Wrong arguments. Type help to see help.");
+            return;
+        }
+        long start = System.nanoTime();
+        try (CorpusWriter writer = new CorpusWriter(new File(args.get(0)))) {
+            generator.generate(count, writer);
+        } catch (IOException ex) {
+            ex.printStackTrace();
+            return;
+        }
+        System.out.println(String.format("Generated %d nonogram(s) from %d candidates in %d ms, %d cells flipped.",
+                count, generator.getCandidates(), (System.nanoTime() - start) / 1000000, generator.getRepairs()));
+    }
 }
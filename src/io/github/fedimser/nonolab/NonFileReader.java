@@ -0,0 +1,305 @@
+package io.github.fedimser.nonolab;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming parser of .non files (<a href="https://github.com/mikix/nonogram-db/blob/master/FORMAT.md">format</a>).
+ * It reads bytes straight from a memory-mapped file or from a channel, in one pass,
+ * and reads clues and goal without creating strings for lines or tokens.
+ *
+ * <p>File may hold several puzzles one after another. Next puzzle starts with <code>width</code> or
+ * <code>height</code> line after clues or goal of previous one.
+ * Lines with other keys (title, author etc.) are skipped.
+ */
+public class NonFileReader implements Closeable {
+    private static final int MAP_WINDOW = 1 << 30;
+    private static final int MAP_THRESHOLD = 1 << 20;  // Smaller files are read, mapping them costs more.
+    private static final int READ_BUFFER = 1 << 16;
+
+    private static final byte[] WIDTH = "width".getBytes();
+    private static final byte[] HEIGHT = "height".getBytes();
+    private static final byte[] ROWS = "rows".getBytes();
+    private static final byte[] COLUMNS = "columns".getBytes();
+    private static final byte[] GOAL = "goal".getBytes();
+
+    private enum Section {NONE, ROWS, COLUMNS}
+
+    /**
+     * Clues of one puzzle and its goal, if file has it.
+     */
+    public static class Puzzle {
+        private final NonogramDescription description;
+        private final NonogramSolution goal;
+
+        Puzzle(NonogramDescription description, NonogramSolution goal) {
+            this.description = description;
+            this.goal = goal;
+        }
+
+        public NonogramDescription getDescription() {
+            return description;
+        }
+
+        /**
+         * @return Picture from <code>goal</code> line, or null if there was no such line.
+         */
+        public NonogramSolution getGoal() {
+            return goal;
+        }
+    }
+
+    private final ReadableByteChannel channel;
+    private final boolean mapped;
+    private long mappedPosition;  // Position in file of the end of what was already read.
+    private ByteBuffer buffer;
+    private final byte[] key = new byte[16];
+
+    // State of puzzle being read.
+    private int width;
+    private int height;
+    private Section section = Section.NONE;
+    private NonogramDescription.Lines columns = new NonogramDescription.Lines();
+    private NonogramDescription.Lines rows = new NonogramDescription.Lines();
+    private NonogramSolution goal;
+    private boolean started;  // Whether clues or goal of current puzzle were read.
+
+    /**
+     * Reads large file through memory mapping, in windows of at most 1 GB, and small file at once.
+     */
+    public NonFileReader(File file) throws IOException {
+        FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        this.channel = fileChannel;
+        this.mapped = true;
+        long size = fileChannel.size();
+        if (size < MAP_THRESHOLD) {
+            buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && fileChannel.read(buffer) > 0) ;
+            buffer.flip();
+            mappedPosition = size;
+        } else {
+            buffer = ByteBuffer.allocate(0);
+        }
+    }
+
+    public NonFileReader(ReadableByteChannel channel) {
+        this.channel = channel;
+        this.mapped = false;
+        this.buffer = ByteBuffer.allocateDirect(READ_BUFFER);
+        this.buffer.limit(0);
+    }
+
+    /**
+     * @return Next puzzle, or null if there are no more.
+     */
+    public Puzzle next() throws IOException {
+        int c;
+        while ((c = read()) != -1) {
+            if (c == '\n') {
+                endClueLine();
+            } else if (c == '\r') {
+                continue;
+            } else if (isLetter(c)) {
+                int keyLength = readKey(c);
+                if (matches(keyLength, WIDTH) || matches(keyLength, HEIGHT)) {
+                    Puzzle ans = started ? finishPuzzle() : null;
+                    if (matches(keyLength, WIDTH)) {
+                        width = readNumber();
+                    } else {
+                        height = readNumber();
+                    }
+                    if (ans != null) return ans;
+                } else if (matches(keyLength, ROWS)) {
+                    section = Section.ROWS;
+                    skipLine();
+                } else if (matches(keyLength, COLUMNS)) {
+                    section = Section.COLUMNS;
+                    skipLine();
+                } else if (matches(keyLength, GOAL)) {
+                    readGoal();
+                } else {
+                    skipLine();
+                }
+            } else {
+                readClueLine(c);
+            }
+        }
+        return started ? finishPuzzle() : null;
+    }
+
+    /**
+     * Reads all puzzles from file.
+     */
+    public static List<Puzzle> readAll(File file) throws IOException {
+        List<Puzzle> ans = new ArrayList<Puzzle>();
+        try (NonFileReader reader = new NonFileReader(file)) {
+            Puzzle puzzle;
+            while ((puzzle = reader.next()) != null) ans.add(puzzle);
+        }
+        return ans;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private Puzzle finishPuzzle() {
+        Puzzle ans = new Puzzle(new NonogramDescription(columns, rows), goal);
+        width = 0;
+        height = 0;
+        section = Section.NONE;
+        columns = new NonogramDescription.Lines();
+        rows = new NonogramDescription.Lines();
+        goal = null;
+        started = false;
+        return ans;
+    }
+
+    /**
+     * Reads rest of clue line which starts with given byte, and adds it to current section.
+     */
+    private void readClueLine(int first) throws IOException {
+        NonogramDescription.Lines lines = currentLines();
+        int num = 0;
+        boolean digits = false;
+        boolean bad = false;  // Token has other characters, e.g. color, and is ignored.
+        int c = first;
+        while (true) {
+            if (c >= '0' && c <= '9') {
+                num = num * 10 + (c - '0');
+                digits = true;
+            } else if (c == ',' || c == ' ' || c == '\t' || c == '\n' || c == -1) {
+                if (digits && !bad && num != 0 && lines != null) lines.addClue(num);
+                num = 0;
+                digits = false;
+                bad = false;
+                if (c == '\n' || c == -1) break;
+            } else if (c != '\r') {
+                bad = true;
+            }
+            c = read();
+        }
+        endClueLine();
+    }
+
+    /**
+     * @return Lines of current section, or null if clues are not expected.
+     * Lines past declared size are ignored, so blank lines after clues don't add empty ones.
+     */
+    private NonogramDescription.Lines currentLines() {
+        if (section == Section.ROWS && rows.size() < height) return rows;
+        if (section == Section.COLUMNS && columns.size() < width) return columns;
+        return null;
+    }
+
+    private void endClueLine() {
+        NonogramDescription.Lines lines = currentLines();
+        if (lines != null) {
+            lines.endLine();
+            started = true;
+        }
+    }
+
+    /**
+     * Reads pixels of goal row by row, as ones and zeros, optionally in quotes.
+     */
+    private void readGoal() throws IOException {
+        NonogramSolution ans = new NonogramSolution(width, height);
+        int index = 0;
+        int c;
+        while ((c = read()) != -1 && c != '\n') {
+            if (c != '0' && c != '1') continue;
+            if (index < width * height && c == '1') ans.SetPixel(index % width, index / width, true);
+            index++;
+        }
+        goal = ans;
+        started = true;
+    }
+
+    /**
+     * Reads key into <code>key</code> and consumes one separator after it.
+     * @return Length of key, or -1 if it is too long to be known one.
+     */
+    private int readKey(int first) throws IOException {
+        int length = 0;
+        int c = first;
+        while (isLetter(c)) {
+            if (length < key.length) key[length] = (byte) c;
+            length++;
+            c = read();
+        }
+        if (c == '\n') unread();
+        return (length <= key.length) ? length : -1;
+    }
+
+    private boolean matches(int keyLength, byte[] expected) {
+        if (keyLength != expected.length) return false;
+        for (int i = 0; i < keyLength; i++) {
+            if (key[i] != expected[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Reads first number on the line and skips rest of the line.
+     */
+    private int readNumber() throws IOException {
+        int num = 0;
+        int c;
+        while ((c = read()) != -1 && c != '\n' && (c < '0' || c > '9')) ;
+        while (c >= '0' && c <= '9') {
+            num = num * 10 + (c - '0');
+            c = read();
+        }
+        if (c != -1 && c != '\n') skipLine();
+        return num;
+    }
+
+    private void skipLine() throws IOException {
+        int c;
+        while ((c = read()) != -1 && c != '\n') ;
+    }
+
+    private static boolean isLetter(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private void unread() {
+        buffer.position(buffer.position() - 1);
+    }
+
+    /**
+     * @return Next byte, or -1 at the end of input.
+     */
+    private int read() throws IOException {
+        if (!buffer.hasRemaining() && !fill()) return -1;
+        return buffer.get() & 0xFF;
+    }
+
+    private boolean fill() throws IOException {
+        if (mapped) {
+            FileChannel fileChannel = (FileChannel) channel;
+            long size = fileChannel.size();
+            if (mappedPosition >= size) return false;
+            int length = (int) Math.min(MAP_WINDOW, size - mappedPosition);
+            buffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, mappedPosition, length);
+            mappedPosition += length;
+            return true;
+        }
+        buffer.clear();
+        int count;
+        do {
+            count = channel.read(buffer);
+        } while (count == 0);
+        buffer.flip();
+        return count > 0;
+    }
+}
@@ -8,70 +8,105 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.lang.reflect.Array;
-import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+/**
+ * Clues of a nonogram. Clues of all lines are kept in one array, columns first and then rows,
+ * and line i has clues from <code>lineStart[i]</code> to <code>lineStart[i+1]</code>.
+ * Lines 0..width-1 are columns and lines width..width+height-1 are rows, as in {@link Solver}.
+ */
 public class NonogramDescription {
     private int width;
     private int height;
-    private List<List<Integer>> columnDescriptions;
-    private List<List<Integer>> rowDescriptions;
+    private int[] clues;
+    private int[] lineStart;
+    private int[] clueSum;  // Sum of clues of each line.
 
+    /**
+     * Growable list of lines with their clues, used to build description.
+     */
+    static class Lines {
+        private int[] clues = new int[16];
+        private int[] lineStart = new int[16];
+        private int size;
+        private int cluesCount;
 
-    // Constructor which explicitly describes given solution.
-    NonogramDescription(NonogramSolution solution) {
-        width = solution.getWidth();
-        height = solution.getHeight();
-        columnDescriptions = new ArrayList<List<Integer>>();
-        rowDescriptions = new ArrayList<List<Integer>>();
+        void addClue(int clue) {
+            if (cluesCount == clues.length) clues = Arrays.copyOf(clues, 2 * cluesCount);
+            clues[cluesCount++] = clue;
+        }
+
+        /**
+         * Finishes line, which has clues added since previous call.
+         */
+        void endLine() {
+            if (size + 1 == lineStart.length) lineStart = Arrays.copyOf(lineStart, 2 * lineStart.length);
+            lineStart[++size] = cluesCount;
+        }
 
-        for (int x = 0; x < width; x++) {
-            columnDescriptions.add(solution.getColumnDescription(x));
+        void addLine(List<Integer> lineClues) {
+            for (int clue : lineClues) addClue(clue);
+            endLine();
         }
 
-        for (int y = 0; y < height; y++) {
-            rowDescriptions.add(solution.getRowDescription(y));
+        int size() {
+            return size;
         }
     }
 
+    // Constructor which explicitly describes given solution.
+    NonogramDescription(NonogramSolution solution) {
+        Lines columns = new Lines();
+        Lines rows = new Lines();
+        solution.describeColumns(columns);
+        solution.describeRows(rows);
+        init(columns, rows);
+    }
+
+    NonogramDescription(Lines columns, Lines rows) {
+        init(columns, rows);
+    }
+
     NonogramDescription(List<List<Integer>> columnDescriptions, List<List<Integer>> rowDescriptions) {
-        width = columnDescriptions.size();
-        height = rowDescriptions.size();
-        this.columnDescriptions = columnDescriptions;
-        this.rowDescriptions = rowDescriptions;
+        Lines columns = new Lines();
+        Lines rows = new Lines();
+        for (List<Integer> line : columnDescriptions) columns.addLine(line);
+        for (List<Integer> line : rowDescriptions) rows.addLine(line);
+        init(columns, rows);
     }
 
     // From compact string representation
     NonogramDescription(String cols, String rows) {
-        String[] colsSplit = cols.split(";");
-        String[] rowsSplit = rows.split(";");
-        width = colsSplit.length;
-        height = rowsSplit.length;
-        columnDescriptions = new ArrayList<List<Integer>>();
-        rowDescriptions = new ArrayList<List<Integer>>();
+        Lines columnLines = new Lines();
+        Lines rowLines = new Lines();
+        for (String line : cols.split(";")) parseLine(line, columnLines);
+        for (String line : rows.split(";")) parseLine(line, rowLines);
+        init(columnLines, rowLines);
+    }
 
-        for(int x=0;x<width;x++) {
-            List<Integer> nums = new ArrayList<Integer>();
-            if(colsSplit[x].length()>0) {
-                for (String s : colsSplit[x].split(",")) {
-                    nums.add(Integer.valueOf(s));
-                }
-            }
-            columnDescriptions.add(nums);
+    private static void parseLine(String line, Lines lines) {
+        if (line.length() > 0) {
+            for (String s : line.split(",")) lines.addClue(Integer.parseInt(s));
         }
+        lines.endLine();
+    }
 
-        for(int y=0;y<height;y++) {
-            List<Integer> nums = new ArrayList<Integer>();
-            if(rowsSplit[y].length()>0) {
-                for (String s : rowsSplit[y].split(",")) {
-                    nums.add(Integer.valueOf(s));
-                }
-            }
-            rowDescriptions.add(nums);
+    private void init(Lines columns, Lines rows) {
+        width = columns.size;
+        height = rows.size;
+        clues = new int[columns.cluesCount + rows.cluesCount];
+        System.arraycopy(columns.clues, 0, clues, 0, columns.cluesCount);
+        System.arraycopy(rows.clues, 0, clues, columns.cluesCount, rows.cluesCount);
+        lineStart = new int[width + height + 1];
+        System.arraycopy(columns.lineStart, 0, lineStart, 0, width + 1);
+        for (int y = 1; y <= height; y++) lineStart[width + y] = columns.cluesCount + rows.lineStart[y];
+        clueSum = new int[width + height];
+        for (int line = 0; line < width + height; line++) {
+            for (int j = lineStart[line]; j < lineStart[line + 1]; j++) clueSum[line] += clues[j];
         }
     }
 
@@ -83,69 +118,160 @@ public class NonogramDescription {
         return height;
     }
 
+    /**
+     * @return Copy of clues of the row as a list.
+     */
     public List<Integer> getRowDescription(int y) {
-        return rowDescriptions.get(y);
+        return getLineDescription(width + y);
     }
 
+    /**
+     * @return Copy of clues of the column as a list.
+     */
     public List<Integer> getColumnDescription(int x) {
-        return columnDescriptions.get(x);
+        return getLineDescription(x);
+    }
+
+    private List<Integer> getLineDescription(int line) {
+        List<Integer> ans = new ArrayList<Integer>(getClueCount(line));
+        for (int j = lineStart[line]; j < lineStart[line + 1]; j++) ans.add(clues[j]);
+        return ans;
+    }
+
+    public int getRowClueCount(int y) {
+        return getClueCount(width + y);
+    }
+
+    public int getColumnClueCount(int x) {
+        return getClueCount(x);
+    }
+
+    /**
+     * @return Length of j-th block of the row.
+     */
+    public int getRowClue(int y, int j) {
+        return clues[lineStart[width + y] + j];
+    }
+
+    /**
+     * @return Length of j-th block of the column.
+     */
+    public int getColumnClue(int x, int j) {
+        return clues[lineStart[x] + j];
+    }
+
+    /**
+     * @return Number of filled cells in the row.
+     */
+    public int getRowClueSum(int y) {
+        return clueSum[width + y];
+    }
+
+    /**
+     * @return Number of filled cells in the column.
+     */
+    public int getColumnClueSum(int x) {
+        return clueSum[x];
+    }
+
+    /**
+     * @return Length of the shortest row which fits clues of the row.
+     */
+    public int getRowMinLength(int y) {
+        return getMinLength(width + y);
+    }
+
+    /**
+     * @return Length of the shortest column which fits clues of the column.
+     */
+    public int getColumnMinLength(int x) {
+        return getMinLength(x);
+    }
+
+    /**
+     * @return Description which differs from this one only by clues of the row.
+     */
+    public NonogramDescription withRowClues(int y, int... lineClues) {
+        if (y < 0 || y >= height) throw new IndexOutOfBoundsException("No row " + y + ".");
+        return withLineClues(width + y, lineClues);
+    }
+
+    /**
+     * @return Description which differs from this one only by clues of the column.
+     */
+    public NonogramDescription withColumnClues(int x, int... lineClues) {
+        if (x < 0 || x >= width) throw new IndexOutOfBoundsException("No column " + x + ".");
+        return withLineClues(x, lineClues);
+    }
+
+    private NonogramDescription withLineClues(int line, int[] lineClues) {
+        for (int clue : lineClues) {
+            if (clue < 1) throw new IllegalArgumentException("Clues must be positive: " + Arrays.toString(lineClues));
+        }
+        Lines columns = new Lines();
+        Lines rows = new Lines();
+        for (int i = 0; i < width + height; i++) {
+            Lines lines = (i < width) ? columns : rows;
+            if (i == line) {
+                for (int clue : lineClues) lines.addClue(clue);
+            } else {
+                for (int j = lineStart[i]; j < lineStart[i + 1]; j++) lines.addClue(clues[j]);
+            }
+            lines.endLine();
+        }
+        return new NonogramDescription(columns, rows);
+    }
+
+    /**
+     * @return Array with clues of all lines, which must not be modified. See {@link #getClueStart(int)}.
+     */
+    int[] getClues() {
+        return clues;
+    }
+
+    /**
+     * @return Index in {@link #getClues()} of first clue of the line.
+     */
+    int getClueStart(int line) {
+        return lineStart[line];
+    }
+
+    int getClueCount(int line) {
+        return lineStart[line + 1] - lineStart[line];
+    }
+
+    int getMinLength(int line) {
+        return Math.max(clueSum[line] + getClueCount(line) - 1, 0);
     }
 
     @Override
     public boolean equals(Object obj) {
         if(this==obj) return true;
-        if(obj.getClass() != NonogramDescription.class) return false;
+        if(obj == null || obj.getClass() != NonogramDescription.class) return false;
         NonogramDescription descr = (NonogramDescription)obj;
         if (descr.width != this.width || descr.height!= this.height) {
             return false;
         }
-        return (this.rowDescriptions.equals(descr.rowDescriptions) &&
-                this.columnDescriptions.equals(descr.columnDescriptions));
+        return Arrays.equals(this.lineStart, descr.lineStart) && Arrays.equals(this.clues, descr.clues);
     }
 
-    public static NonogramDescription fromFile(File file) throws IOException {
-        List<String> lines = Files.lines(file.toPath()).collect(Collectors.toCollection(ArrayList::new));
-
-        int width = 0;
-        int height = 0;
-        List<List<Integer>> cols = new ArrayList<List<Integer>>();
-        List<List<Integer>> rows = new ArrayList<List<Integer>>();
-
-
-        String mode = "";
-        for (String line : lines) {
-            String[] s = line.split(" ");
-            if (s[0].equals("width")) {
-                width = Integer.valueOf(s[1]);
-            } else if (s[0].equals("height")) {
-                height = Integer.valueOf(s[1]);
-            } else if (s[0].equals("rows")) {
-                mode = "rows";
-            } else if (s[0].equals("columns")) {
-                mode = "columns";
-            } else if (mode.equals("rows")) {
-                if(rows.size() >= height) continue;
-                rows.add(parseRowDesc(line));
-            } else if(mode.equals("columns")) {
-                if(cols.size() >= width) continue;
-                cols.add(parseRowDesc(line));
-            }
-        }
-        return new NonogramDescription(cols, rows);
+    @Override
+    public int hashCode() {
+        return 31 * (31 * width + height) + Arrays.hashCode(clues);
     }
 
-    private static List<Integer> parseRowDesc(String s) {
-        List<Integer> ans = new ArrayList<Integer>();
-        for(String x: s.split(",")) {
-            int num=0;
-            try {
-                num = Integer.valueOf(x);
-            } catch (NumberFormatException e) {
-                continue;
-            }
-            if(num!=0)ans.add(num);
+    /**
+     * Reads first nonogram from .non file.
+     */
+    public static NonogramDescription fromFile(File file) throws IOException {
+        NonFileReader.Puzzle puzzle;
+        try (NonFileReader reader = new NonFileReader(file)) {
+            puzzle = reader.next();
         }
-        return ans;
+        if (puzzle == null) {
+            return new NonogramDescription(new Lines(), new Lines());
+        }
+        return puzzle.getDescription();
     }
 
     /**
@@ -154,7 +280,7 @@ public class NonogramDescription {
     public int getDescriptionHeight() {
         int ans=0;
         for(int x=0;x<width;x++){
-            ans = Math.max(ans, columnDescriptions.get(x).size());
+            ans = Math.max(ans, getClueCount(x));
         }
         return ans;
     }
@@ -165,7 +291,7 @@ public class NonogramDescription {
     public int getDescriptionWidth() {
         int ans=0;
         for(int y=0;y<height;y++){
-            ans = Math.max(ans, rowDescriptions.get(y).size());
+            ans = Math.max(ans, getClueCount(width + y));
         }
         return ans;
     }
@@ -176,19 +302,20 @@ public class NonogramDescription {
         writer.write(String.format("height %d\n\n", height));
         writer.write("columns\n");
         for(int x=0;x<width;x++) {
-            writer.write(getColumnDescription(x)
-                .stream()
-                .map(Object::toString)
-                .collect(Collectors.joining(",")) + "\n");
+            writeLine(writer, x);
         }
         writer.write("rows\n");
         for(int y=0;y<height;y++) {
-            writer.write(getRowDescription(y)
-                    .stream()
-                    .map(Object::toString)
-                    .collect(Collectors.joining(",")) + "\n");
+            writeLine(writer, width + y);
         }
         writer.close();
     }
-}
 
+    private void writeLine(BufferedWriter writer, int line) throws IOException {
+        for (int j = lineStart[line]; j < lineStart[line + 1]; j++) {
+            if (j > lineStart[line]) writer.write(',');
+            writer.write(Integer.toString(clues[j]));
+        }
+        writer.write('\n');
+    }
+}
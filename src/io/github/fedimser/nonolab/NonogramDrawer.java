@@ -6,16 +6,111 @@ package io.github.fedimser.nonolab;
 import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.awt.image.RenderedImage;
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
-import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 public class NonogramDrawer {
     final static int CELL_SIZE = 25;
     final static Color BACKGROUND_COLOR = Color.white;
     final static Color CELL_COLOR = Color.black;
+    final static Font CLUE_FONT = clueFont(CELL_SIZE);
+
+    public enum Format {
+        JPEG("jpg"),
+        PNG("png");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    /**
+     * Digits of clue font, rasterized once. Clues are drawn by copying their pixels straight into image,
+     * which saves font lookup and text layout for every number.
+     */
+    static class Glyphs {
+        static final Glyphs INSTANCE = new Glyphs(CELL_SIZE);
+
+        private final int cellSize;
+        private final int height;
+        private final int[] widths = new int[10];
+        private final boolean[][] masks = new boolean[10][];  // Pixels of digit, row by row.
+
+        Glyphs(int cellSize) {
+            this.cellSize = cellSize;
+            Font font = clueFont(cellSize);
+            Graphics2D scratch = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB).createGraphics();
+            FontMetrics metrics = scratch.getFontMetrics(font);
+            scratch.dispose();
+            height = metrics.getHeight();
+            for (int d = 0; d < 10; d++) {
+                int width = metrics.charWidth((char) ('0' + d));
+                widths[d] = width;
+                masks[d] = new boolean[width * height];
+                if (width == 0 || height == 0) continue;
+                BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+                Graphics2D g = image.createGraphics();
+                g.setColor(BACKGROUND_COLOR);
+                g.fillRect(0, 0, width, height);
+                g.setColor(CELL_COLOR);
+                g.setFont(font);
+                g.drawString(String.valueOf(d), 0, metrics.getAscent());
+                g.dispose();
+                for (int y = 0; y < height; y++) {
+                    for (int x = 0; x < width; x++) {
+                        masks[d][y * width + x] = image.getRGB(x, y) != BACKGROUND_COLOR.getRGB();
+                    }
+                }
+            }
+        }
+
+        /**
+         * Draws number centered in the cell with given top left corner.
+         */
+        void drawNumber(BufferedImage image, int number, int cellX, int cellY) {
+            int[] digits = new int[10];
+            int count = 0;
+            int totalWidth = 0;
+            do {
+                digits[count] = number % 10;
+                totalWidth += widths[digits[count]];
+                count++;
+                number /= 10;
+            } while (number > 0);
+
+            int[] data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            int stride = image.getWidth();
+            int color = CELL_COLOR.getRGB();
+            int x0 = cellX + (cellSize - totalWidth) / 2;
+            int y0 = cellY + (cellSize - height) / 2;
+            for (int i = count - 1; i >= 0; i--) {
+                int d = digits[i];
+                for (int y = Math.max(0, -y0); y < height && y0 + y < image.getHeight(); y++) {
+                    for (int x = Math.max(0, -x0); x < widths[d] && x0 + x < stride; x++) {
+                        if (masks[d][y * widths[d] + x]) data[(y0 + y) * stride + x0 + x] = color;
+                    }
+                }
+                x0 += widths[d];
+            }
+        }
+    }
+
+    static Font clueFont(int cellSize) {
+        return new Font("Arial", Font.PLAIN, (int)(cellSize*0.6));
+    }
 
     public static RenderedImage drawSolution(NonogramSolution sol) {
         int w = sol.getWidth();
@@ -83,36 +178,21 @@ public class NonogramDrawer {
         }
 
 
-        Font font = new Font("Arial", Font.PLAIN, (int)(CELL_SIZE*0.6));
-
+        Glyphs glyphs = Glyphs.INSTANCE;
 
         // Draw column descriptions.
         for (int x=0;x<w2; x++) {
-            for(int y=0;y<h2;y++) {
-                List<Integer> nums = des.getColumnDescription(x);
-                int pos = h1 - nums.size();
-                for(int num: nums) {
-                    int cellX = (w1+x)*CELL_SIZE;
-                    int cellY = pos*CELL_SIZE;
-                    Rectangle rect = new Rectangle(cellX, cellY, CELL_SIZE, CELL_SIZE);
-                    drawCenteredString(g, String.valueOf(num), rect, font);
-                    pos++;
-                }
+            int count = des.getColumnClueCount(x);
+            for(int j=0;j<count;j++) {
+                glyphs.drawNumber(image, des.getColumnClue(x, j), (w1+x)*CELL_SIZE, (h1-count+j)*CELL_SIZE);
             }
         }
 
         // Draw row descriptions.
         for (int y=0;y<h2; y++) {
-            for(int x=0;x<w2;x++) {
-                List<Integer> nums = des.getRowDescription(y);
-                int pos = w1 - nums.size();
-                for(int num: nums) {
-                    int cellX = pos*CELL_SIZE;
-                    int cellY =  (h1+y)*CELL_SIZE;
-                    Rectangle rect = new Rectangle(cellX, cellY, CELL_SIZE, CELL_SIZE);
-                    drawCenteredString(g, String.valueOf(num), rect, font);
-                    pos++;
-                }
+            int count = des.getRowClueCount(y);
+            for(int j=0;j<count;j++) {
+                glyphs.drawNumber(image, des.getRowClue(y, j), (w1-count+j)*CELL_SIZE, (h1+y)*CELL_SIZE);
             }
         }
 
@@ -132,37 +212,58 @@ public class NonogramDrawer {
         return (RenderedImage)image;
     }
 
-    /**
-     * Draw a String centered in the middle of a Rectangle.
-     * @param g The Graphics instance.
-     * @param text The String to draw.
-     * @param rect The Rectangle to center the text in.
-     */
-    private static void drawCenteredString(Graphics g, String text, Rectangle rect, Font font) {
-        // Get the FontMetrics
-        FontMetrics metrics = g.getFontMetrics(font);
-        // Determine the X coordinate for the text
-        int x = rect.x + (rect.width - metrics.stringWidth(text)) / 2;
-        // Determine the Y coordinate for the text (note we add the ascent, as in java 2d 0 is top of the screen)
-        int y = rect.y + ((rect.height - metrics.getHeight()) / 2) + metrics.getAscent();
-        // Set the font
-        g.setFont(font);
-        // Draw the String
-        g.drawString(text, x, y);
+    public static void drawAll(NonogramSolution sol, Path dir, String name) throws java.io.IOException {
+        drawAll(sol, dir, name, Format.JPEG);
     }
 
-    public static void drawAll(NonogramSolution sol, Path dir, String name) throws java.io.IOException {
+    /**
+     * Saves pictures of description, of solution and of both.
+     * They are drawn and encoded concurrently, two of them in the common fork-join pool.
+     */
+    public static void drawAll(NonogramSolution sol, Path dir, String name, Format format) throws IOException {
         NonogramDescription desc = new NonogramDescription(sol);
+        String extension = "." + format.getExtension();
 
-        RenderedImage descPic = drawDescription(desc);
-        ImageIO.write(descPic, "jpg", dir.resolve(name + "_descr.jpg").toFile());
-
-        RenderedImage solPic = drawSolution(sol);
-        ImageIO.write(solPic, "jpg", dir.resolve(name + "_solved.jpg").toFile());
-
-        RenderedImage fullPic = drawFull(desc, sol);
-        ImageIO.write(fullPic, "jpg", dir.resolve(name + ".jpg").toFile());
+        CompletableFuture<Void> descTask = CompletableFuture.runAsync(
+                () -> write(drawDescription(desc), format, dir.resolve(name + "_descr" + extension).toFile()));
+        CompletableFuture<Void> solTask = CompletableFuture.runAsync(
+                () -> write(drawSolution(sol), format, dir.resolve(name + "_solved" + extension).toFile()));
+        try {
+            try {
+                write(drawFull(desc, sol), format, dir.resolve(name + extension).toFile());
+            } finally {
+                // Other pictures must be finished before returning, even if this one failed.
+                joinQuietly(descTask);
+                joinQuietly(solTask);
+            }
+            descTask.join();
+            solTask.join();
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof UncheckedIOException) throw ((UncheckedIOException) ex.getCause()).getCause();
+            throw ex;
+        }
     }
 
+    /**
+     * Waits for task to finish, ignoring its failure.
+     */
+    private static void joinQuietly(CompletableFuture<Void> task) {
+        try {
+            task.join();
+        } catch (CompletionException | CancellationException ex) {
+            // Reported by caller.
+        }
+    }
 
+    private static void write(RenderedImage image, Format format, File file) {
+        try {
+            if (!ImageIO.write(image, format.getExtension(), file)) {
+                throw new IOException("No image writer for " + format + ".");
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
 }
@@ -2,6 +2,9 @@ package io.github.fedimser.nonolab;
 
 
 
+import io.github.fedimser.nonolab.util.LongArray;
+import io.github.fedimser.nonolab.util.Storage;
+
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.awt.image.RenderedImage;
@@ -9,42 +12,65 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
-import java.util.stream.Collectors;
+import java.util.function.IntConsumer;
 
 
 public class NonogramSolution {
     public final static char EMPTY_MARKER = ' ';
     public final static char FILL_MARKER = 'X';
-
+    // Pictures of grids up to this many words are kept on heap, mapping a file for each of them is slow.
+    private final static long HEAP_WORDS = 1 << 20;
 
     private int width;
     private int height;
-    private Boolean[][] pixels;
+    private int rowWords;  // Words per row.
+    private LongArray pixels;  // Bits of filled pixels, row by row.
 
     public NonogramSolution(int width, int height) {
+        this(width, height, Storage.HEAP);
+    }
+
+    /**
+     * Creates empty picture kept in given storage.
+     */
+    public NonogramSolution(int width, int height, Storage storage) {
         this.width = width;
         this.height = height;
-        this.pixels = new Boolean[width][height];
+        this.rowWords = (width + 63) / 64;
+        this.pixels = storage.allocate((long) height * rowWords);
     }
 
     public NonogramSolution(Boolean[][] pixels) {
-        this.width = pixels.length;
-        this.height = pixels[0].length;
-        this.pixels = pixels;
+        this(pixels.length, pixels[0].length);
+        for(int x=0;x<width;x++) {
+            for (int y = 0; y < height; y++) {
+                SetPixel(x, y, pixels[x][y]);
+            }
+        }
     }
 
     public NonogramSolution(Solver.CellState[][] cells) {
-        this.width = cells.length;
-        this.height = cells[0].length;
-        this.pixels = new Boolean[width][height];
+        this(cells.length, cells[0].length);
         for(int x=0;x<width;x++) {
             for (int y = 0; y < height; y++) {
-                pixels[x][y] = (cells[x][y]== Solver.CellState.FILLED);
+                SetPixel(x, y, cells[x][y] == Solver.CellState.FILLED);
+            }
+        }
+    }
+
+    /**
+     * Creates picture of filled cells of grid. Large pictures are kept in the same storage as the grid.
+     */
+    public NonogramSolution(Grid grid) {
+        this(grid.getWidth(), grid.getHeight(),
+                (long) grid.getHeight() * ((grid.getWidth() + 63) / 64) <= HEAP_WORDS ? Storage.HEAP : grid.getStorage());
+        for (int y = 0; y < height; y++) {
+            for (int i = 0; i < rowWords; i++) {
+                pixels.set((long) y * rowWords + i, grid.getRowFilled(y, i));
             }
         }
     }
@@ -53,10 +79,11 @@ public class NonogramSolution {
      * Constructor from string representation.
      */
     public NonogramSolution(String picture) throws IllegalArgumentException {
-        String[] lines = picture.split("\n");
-        this.height = lines.length;
-        this.width = lines[0].length();
-        this.pixels = new Boolean[width][height];
+        this(picture.split("\n"));
+    }
+
+    private NonogramSolution(String[] lines) throws IllegalArgumentException {
+        this(lines[0].length(), lines.length);
         for(int y = 0;y<height;y++){
             if(lines[y].length() != width) {
                 throw new IllegalArgumentException("Different size of lines.");
@@ -64,9 +91,9 @@ public class NonogramSolution {
             for(int x=0;x<width;x++) {
                 char c = lines[y].charAt(x);
                 if(c == EMPTY_MARKER) {
-                    pixels[x][y] = false;
+                    SetPixel(x, y, false);
                 } else if (c== FILL_MARKER) {
-                    pixels[x][y]=true;
+                    SetPixel(x, y, true);
                 } else {
                     throw new IllegalArgumentException("Bad marker: " + c + ".");
                 }
@@ -86,7 +113,7 @@ public class NonogramSolution {
         StringBuilder sb = new StringBuilder();
         for(int y=0;y<height;y++) {
             for(int x=0;x<width;x++) {
-                sb.append(pixels[x][y]? FILL_MARKER : EMPTY_MARKER);
+                sb.append(getPixel(x, y)? FILL_MARKER : EMPTY_MARKER);
             }
             if(y!= height-1) sb.append('\n');
         }
@@ -96,16 +123,7 @@ public class NonogramSolution {
     public boolean fitsDescription(NonogramDescription description) {
         if(description.getWidth() != this.width) return false;
         if(description.getHeight() != this.height) return false;
-
-        for(int x=0;x<width;x++) {
-            if(!this.getColumnDescription(x).equals(description.getColumnDescription(x))) return false;
-        }
-
-        for(int y=0;y<width;y++) {
-            if(!this.getRowDescription(y).equals(description.getRowDescription(y))) return false;
-        }
-
-        return true;
+        return new NonogramDescription(this).equals(description);
     }
 
     public int getWidth() {
@@ -117,112 +135,204 @@ public class NonogramSolution {
     }
 
     public boolean getPixel(int x, int y) {
-        return pixels[x][y];
+        return (pixels.get((long) y * rowWords + x / 64) & (1L << (x % 64))) != 0;
     }
 
     public void SetPixel(int x, int y, boolean value) {
-        pixels[x][y]=value;
+        long index = (long) y * rowWords + x / 64;
+        long bit = 1L << (x % 64);
+        pixels.set(index, value ? pixels.get(index) | bit : pixels.get(index) & ~bit);
     }
 
     public List<Boolean> getRow(int y){
         List<Boolean> ans = new ArrayList<Boolean>();
         for(int x=0;x<width;x++) {
-            ans.add(pixels[x][y]);
+            ans.add(getPixel(x, y));
         }
         return ans;
     }
 
     public List<Boolean> getColumn(int x){
-        return Arrays.asList(pixels[x]);
+        List<Boolean> ans = new ArrayList<Boolean>();
+        for(int y=0;y<height;y++) {
+            ans.add(getPixel(x, y));
+        }
+        return ans;
     }
 
     public List<Integer> getRowDescription(int y) {
         List<Integer> ans = new ArrayList<Integer>();
-        int cum = 0;
-        for (int x=0;x<width;x++) {
-            if (pixels[x][y]) cum++;
-            else if (cum > 0) {ans.add(cum); cum = 0;}
+        int run = 0;
+        for (int i = 0; i < rowWords; i++) {
+            run = appendRuns(pixels.get((long) y * rowWords + i), Math.min(64, width - 64 * i), run, ans::add);
         }
-        if (cum > 0) ans.add(cum);
+        if (run > 0) ans.add(run);
         return ans;
     }
 
+    /**
+     * Bits of column are gathered from words of 64 rows at a time into one word, which is then scanned as row.
+     */
     public List<Integer> getColumnDescription(int x) {
         List<Integer> ans = new ArrayList<Integer>();
-        int cum = 0;
-        for (int y=0;y<height;y++) {
-            if (pixels[x][y]) cum++;
-            else if (cum > 0) {ans.add(cum); cum = 0;}
+        int shift = x % 64;
+        int run = 0;
+        for (int y0 = 0; y0 < height; y0 += 64) {
+            int rows = Math.min(64, height - y0);
+            long word = 0;
+            long index = (long) y0 * rowWords + x / 64;
+            for (int r = 0; r < rows; r++, index += rowWords) word |= ((pixels.get(index) >>> shift) & 1) << r;
+            run = appendRuns(word, rows, run, ans::add);
         }
-        if (cum > 0) ans.add(cum);
+        if (run > 0) ans.add(run);
         return ans;
     }
 
+    /**
+     * Adds clues of all rows to lines.
+     */
+    void describeRows(NonogramDescription.Lines lines) {
+        IntConsumer addClue = lines::addClue;
+        for (int y = 0; y < height; y++) {
+            int run = 0;
+            for (int i = 0; i < rowWords; i++) {
+                run = appendRuns(pixels.get((long) y * rowWords + i), Math.min(64, width - 64 * i), run, addClue);
+            }
+            if (run > 0) lines.addClue(run);
+            lines.endLine();
+        }
+    }
 
+    /**
+     * Adds clues of all columns to lines.
+     * Columns are taken 64 at a time: blocks of 64x64 pixels are transposed, so that bits of each column
+     * come in words, and then they are scanned as rows.
+     */
+    void describeColumns(NonogramDescription.Lines lines) {
+        int columnWords = (height + 63) / 64;
+        long[] columns = new long[64 * columnWords];  // Words of 64 columns, column by column.
+        long[] block = new long[64];
+        IntConsumer addClue = lines::addClue;
+        for (int i = 0; i < rowWords; i++) {
+            for (int j = 0; j < columnWords; j++) {
+                int rows = Math.min(64, height - 64 * j);
+                for (int r = 0; r < 64; r++) block[r] = (r < rows) ? pixels.get((long) (64 * j + r) * rowWords + i) : 0;
+                transpose(block);
+                for (int c = 0; c < 64; c++) columns[c * columnWords + j] = block[c];
+            }
+            int count = Math.min(64, width - 64 * i);
+            for (int c = 0; c < count; c++) {
+                int run = 0;
+                for (int j = 0; j < columnWords; j++) {
+                    run = appendRuns(columns[c * columnWords + j], Math.min(64, height - 64 * j), run, addClue);
+                }
+                if (run > 0) lines.addClue(run);
+                lines.endLine();
+            }
+        }
+    }
 
-
-    public static NonogramSolution fromFile(File file) throws IOException {
-        List<String> lines = Files.lines(file.toPath()).collect(Collectors.toCollection(ArrayList::new));
-
-        int width = 0;
-        int height = 0;
-        String goal="";
-
-        for (String line : lines) {
-            String[] s = line.split(" ");
-            if (s[0].equals("width")) {
-                width = Integer.valueOf(s[1]);
-            } else if (s[0].equals("height")) {
-                height = Integer.valueOf(s[1]);
-            } else if (s[0].equals("goal")) {
-                goal = s[1].replace("\"","");
+    /**
+     * Passes lengths of blocks which end within first bits of word to clues.
+     * @param run Length of block which continues from previous words.
+     * @return Length of block which continues to next words.
+     */
+    private static int appendRuns(long word, int bits, int run, IntConsumer clues) {
+        int pos = 0;
+        while (pos < bits) {
+            long rest = word >>> pos;
+            if ((rest & 1) != 0) {
+                int ones = Math.min(Long.numberOfTrailingZeros(~rest), bits - pos);
+                run += ones;
+                pos += ones;
+            } else {
+                if (run > 0) clues.accept(run);
+                run = 0;
+                pos += Long.numberOfTrailingZeros(rest);  // 64 if rest is zero, which ends the word.
             }
         }
-        Boolean[][] pixels = new Boolean[width][height];
-        for(int y=0;y<height;y++) {
-            for(int x=0;x<width;x++) {
-                char c = goal.charAt(y*width+x);
-                pixels[x][y] = (c=='1');
+        return run;
+    }
+
+    /**
+     * Transposes 64x64 bit matrix, where bit c of word r is in row r and column c,
+     * by swapping off-diagonal blocks of halving size.
+     */
+    static void transpose(long[] a) {
+        long m = 0x00000000FFFFFFFFL;
+        for (int j = 32; j != 0; j >>= 1, m ^= m << j) {
+            for (int k = 0; k < 64; k = ((k | j) + 1) & ~j) {
+                long t = ((a[k] >>> j) ^ a[k | j]) & m;
+                a[k] ^= t << j;
+                a[k | j] ^= t;
             }
         }
-        return new NonogramSolution(pixels);
+    }
+
+    /**
+     * Reads goal of first nonogram from .non file.
+     */
+    public static NonogramSolution fromFile(File file) throws IOException {
+        NonFileReader.Puzzle puzzle;
+        try (NonFileReader reader = new NonFileReader(file)) {
+            puzzle = reader.next();
+        }
+        if (puzzle == null || puzzle.getGoal() == null) {
+            throw new IOException("No goal in " + file + ".");
+        }
+        return puzzle.getGoal();
     }
 
     public static NonogramSolution random(int width, int height, Random random, double prob) {
-        Boolean[][] pixels = new Boolean[width][height];
+        NonogramSolution ans = new NonogramSolution(width, height);
         for(int x=0;x<width;x++) {
             for(int y=0;y<height;y++) {
-                pixels[x][y] = (random.nextDouble()<prob);
+                ans.SetPixel(x, y, random.nextDouble()<prob);
             }
         }
-        return new NonogramSolution(pixels);
+        return ans;
     }
 
 
     @Override
     public boolean equals(Object obj) {
         if(this==obj)return true;
-        if(obj.getClass() != NonogramSolution.class) return false;
+        if(obj == null || obj.getClass() != NonogramSolution.class) return false;
         NonogramSolution sol = (NonogramSolution)obj;
         if (sol.width != this.width || sol.height!= this.height) {
             return false;
         }
-        for(int x=0;x<width;x++){
-            for(int y=0;y<height;y++) {
-                if(pixels[x][y]!=sol.getPixel(x,y)) return false;
-            }
+        long words = (long) height * rowWords;
+        for (long i = 0; i < words; i++) {
+            if (pixels.get(i) != sol.pixels.get(i)) return false;
         }
         return true;
     }
 
+    @Override
+    public int hashCode() {
+        long ans = 31L * width + height;
+        long words = (long) height * rowWords;
+        for (long i = 0; i < words; i++) {
+            ans = 31 * ans + pixels.get(i);
+        }
+        return (int) (ans ^ (ans >>> 32));
+    }
+
     public void writeToFile(File file) throws IOException {
         NonogramDescription descr = new NonogramDescription(this);
         descr.writeToFile(file);
+        appendGoal(file);
+    }
 
+    /**
+     * Appends goal line with this picture to .non file.
+     */
+    void appendGoal(File file) throws IOException {
         StringBuilder goal = new StringBuilder("\n\ngoal \"");
-        for(int x=0;x<width;x++) {
-            for(int y=0;y<height;y++) {
-                goal.append(pixels[x][y]?'1':'0');
+        for(int y=0;y<height;y++) {
+            for(int x=0;x<width;x++) {
+                goal.append(getPixel(x, y)?'1':'0');
             }
         }
         goal.append("\"\n");
@@ -0,0 +1,214 @@
+package io.github.fedimser.nonolab;
+
+import io.github.fedimser.nonolab.util.PngWriter;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.file.Path;
+
+/**
+ * Renders pictures of nonograms of any size with given cell size, for printing.
+ * Raster pictures are drawn one row of cells at a time and streamed to PNG encoder,
+ * so memory use depends only on width of the picture. Vector pictures are streamed as SVG.
+ * At cell size {@link NonogramDrawer#CELL_SIZE} PNG pictures are the same as ones of {@link NonogramDrawer}.
+ */
+public class PosterRenderer {
+    public enum Format {
+        PNG("png"),
+        SVG("svg");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    private final int cellSize;
+    private final int thinLine;  // Width of lines between cells. Every 5th line is twice wider, borders are 4 times.
+    private NonogramDrawer.Glyphs glyphs;
+
+    public PosterRenderer(int cellSize) {
+        if (cellSize < 4) throw new IllegalArgumentException("Cell size must be at least 4.");
+        this.cellSize = cellSize;
+        this.thinLine = Math.max(1, cellSize / NonogramDrawer.CELL_SIZE);
+    }
+
+    /**
+     * Saves pictures of description, of solution and of both, named as by {@link NonogramDrawer#drawAll}.
+     */
+    public void drawAll(NonogramSolution sol, Path dir, String name, Format format) throws IOException {
+        NonogramDescription desc = new NonogramDescription(sol);
+        write(desc, null, format, dir.resolve(name + "_descr." + format.getExtension()));
+        write(null, sol, format, dir.resolve(name + "_solved." + format.getExtension()));
+        write(desc, sol, format, dir.resolve(name + "." + format.getExtension()));
+    }
+
+    private void write(NonogramDescription des, NonogramSolution sol, Format format, Path file) throws IOException {
+        if (format == Format.PNG) {
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file.toFile()))) {
+                writePng(des, sol, out);
+            }
+        } else {
+            try (Writer out = new BufferedWriter(new FileWriter(file.toFile()))) {
+                writeSvg(des, sol, out);
+            }
+        }
+    }
+
+    /**
+     * Writes PNG picture. Stream is not closed.
+     * @param des Description, or null for picture of solution only.
+     * @param sol Solution, or null for picture of description only.
+     */
+    public void writePng(NonogramDescription des, NonogramSolution sol, OutputStream out) throws IOException {
+        int w1 = (des == null) ? 0 : des.getDescriptionWidth();
+        int h1 = (des == null) ? 0 : des.getDescriptionHeight();
+        int w2 = (des == null) ? sol.getWidth() : des.getWidth();
+        int h2 = (des == null) ? sol.getHeight() : des.getHeight();
+        long pictureWidth = (long) (w1 + w2) * cellSize;
+        if (pictureWidth * cellSize > Integer.MAX_VALUE) throw new IllegalArgumentException("Picture is too wide.");
+        if ((long) (h1 + h2) * cellSize > Integer.MAX_VALUE) throw new IllegalArgumentException("Picture is too high.");
+        int width = (int) pictureWidth;
+        if (glyphs == null) glyphs = new NonogramDrawer.Glyphs(cellSize);
+
+        BufferedImage band = new BufferedImage(width, cellSize, BufferedImage.TYPE_INT_RGB);
+        int[] data = ((DataBufferInt) band.getRaster().getDataBuffer()).getData();
+        PngWriter png = new PngWriter(out, width, (h1 + h2) * cellSize);
+        for (int r = 0; r < h1 + h2; r++) {
+            Graphics2D g = band.createGraphics();
+            g.setColor(NonogramDrawer.BACKGROUND_COLOR);
+            g.fillRect(0, 0, width, cellSize);
+            g.setColor(NonogramDrawer.CELL_COLOR);
+            g.translate(0, -r * cellSize);
+            if (des != null) drawBand(g, band, des, r, w1, h1);
+            if (sol != null && r >= h1) {
+                int y = r - h1;
+                for (int x = 0; x < w2; x++) {
+                    if (sol.getPixel(x, y)) g.fillRect((x + w1) * cellSize, r * cellSize, cellSize, cellSize);
+                }
+            }
+            g.dispose();
+            for (int py = 0; py < cellSize; py++) png.writeRow(data, py * width);
+        }
+        png.close();
+    }
+
+    /**
+     * Draws lines and clues which get into band of row r of cells.
+     */
+    private void drawBand(Graphics2D g, BufferedImage band, NonogramDescription des, int r, int w1, int h1) {
+        int w2 = des.getWidth();
+        int h2 = des.getHeight();
+        for (int k = Math.max(0, r - 1); k <= Math.min(h1 + h2, r + 2); k++) {
+            g.setStroke(new BasicStroke(lineWidth(k - h1, -h1, h2)));
+            g.drawLine(0, cellSize * k, cellSize * (w1 + w2), cellSize * k);
+        }
+        for (int x = -w1; x <= w2; x++) {
+            g.setStroke(new BasicStroke(lineWidth(x, -w1, w2)));
+            g.drawLine(cellSize * (x + w1), cellSize * (r - 1), cellSize * (x + w1), cellSize * (r + 2));
+        }
+
+        if (r < h1) {
+            for (int x = 0; x < w2; x++) {
+                int j = r - (h1 - des.getColumnClueCount(x));
+                if (j >= 0) glyphs.drawNumber(band, des.getColumnClue(x, j), (w1 + x) * cellSize, 0);
+            }
+        } else {
+            int y = r - h1;
+            int count = des.getRowClueCount(y);
+            for (int j = 0; j < count; j++) {
+                glyphs.drawNumber(band, des.getRowClue(y, j), (w1 - count + j) * cellSize, 0);
+            }
+        }
+    }
+
+    /**
+     * @return Width of line at position pos, where first and last are borders and 0 separates clues from cells.
+     */
+    private int lineWidth(int pos, int first, int last) {
+        if (pos == first || pos == 0 || pos == last) return 4 * thinLine;
+        return (pos % 5 == 0) ? 2 * thinLine : thinLine;
+    }
+
+    /**
+     * Writes SVG picture, with cells of each row merged into runs. Writer is not closed.
+     * @param des Description, or null for picture of solution only.
+     * @param sol Solution, or null for picture of description only.
+     */
+    public void writeSvg(NonogramDescription des, NonogramSolution sol, Writer out) throws IOException {
+        int w1 = (des == null) ? 0 : des.getDescriptionWidth();
+        int h1 = (des == null) ? 0 : des.getDescriptionHeight();
+        int w2 = (des == null) ? sol.getWidth() : des.getWidth();
+        int h2 = (des == null) ? sol.getHeight() : des.getHeight();
+        long width = (long) (w1 + w2) * cellSize;
+        long height = (long) (h1 + h2) * cellSize;
+
+        out.write("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"" + width + "\" height=\"" + height +
+                "\" viewBox=\"0 0 " + width + " " + height + "\">\n");
+        out.write("<rect width=\"" + width + "\" height=\"" + height + "\" fill=\"white\"/>\n");
+
+        if (des != null) {
+            out.write("<g stroke=\"black\" stroke-linecap=\"square\">\n");
+            for (int y = -h1; y <= h2; y++) {
+                long pos = (long) cellSize * (y + h1);
+                out.write("<line x1=\"0\" y1=\"" + pos + "\" x2=\"" + width + "\" y2=\"" + pos +
+                        "\" stroke-width=\"" + lineWidth(y, -h1, h2) + "\"/>\n");
+            }
+            for (int x = -w1; x <= w2; x++) {
+                long pos = (long) cellSize * (x + w1);
+                out.write("<line x1=\"" + pos + "\" y1=\"0\" x2=\"" + pos + "\" y2=\"" + height +
+                        "\" stroke-width=\"" + lineWidth(x, -w1, w2) + "\"/>\n");
+            }
+            out.write("</g>\n");
+
+            out.write("<g font-family=\"Arial, sans-serif\" font-size=\"" + (int) (cellSize * 0.6) +
+                    "\" text-anchor=\"middle\" dominant-baseline=\"central\">\n");
+            for (int x = 0; x < w2; x++) {
+                int count = des.getColumnClueCount(x);
+                for (int j = 0; j < count; j++) writeText(out, des.getColumnClue(x, j), w1 + x, h1 - count + j);
+            }
+            for (int y = 0; y < h2; y++) {
+                int count = des.getRowClueCount(y);
+                for (int j = 0; j < count; j++) writeText(out, des.getRowClue(y, j), w1 - count + j, h1 + y);
+            }
+            out.write("</g>\n");
+        }
+
+        if (sol != null) {
+            out.write("<g fill=\"black\">\n");
+            for (int y = 0; y < h2; y++) {
+                int x = 0;
+                while (x < w2) {
+                    if (!sol.getPixel(x, y)) {
+                        x++;
+                        continue;
+                    }
+                    int start = x;
+                    while (x < w2 && sol.getPixel(x, y)) x++;
+                    out.write("<rect x=\"" + (long) cellSize * (start + w1) + "\" y=\"" + (long) cellSize * (y + h1) +
+                            "\" width=\"" + (long) cellSize * (x - start) + "\" height=\"" + cellSize + "\"/>\n");
+                }
+            }
+            out.write("</g>\n");
+        }
+        out.write("</svg>\n");
+    }
+
+    private void writeText(Writer out, int number, int cellX, int cellY) throws IOException {
+        out.write("<text x=\"" + ((long) cellSize * cellX + cellSize / 2.0) + "\" y=\"" +
+                ((long) cellSize * cellY + cellSize / 2.0) + "\">" + number + "</text>\n");
+    }
+}
@@ -0,0 +1,195 @@
+package io.github.fedimser.nonolab;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Generates random nonograms with unique solution in several worker threads and writes them to corpus file.
+ *
+ * <p>Each candidate starts as random picture. If line solving decides all cells, solution is unique.
+ * Otherwise solution and its uniqueness are found by search, limited by timeout. If there is another solution,
+ * a cell where the two solutions differ is flipped in the picture, and the candidate is checked again.
+ * Candidate which is still ambiguous after given number of repairs, or which takes too long, is dropped.
+ *
+ * <p>Candidate number n draws random numbers from its own generator, seeded by seed and n.
+ * Accepted puzzles are written in order of candidate numbers, so the same seed gives the same corpus
+ * with any number of threads.
+ */
+public class PuzzleGenerator {
+    private final int threads;
+    private final int width;
+    private final int height;
+    private double density = 0.55;
+    private long seed = System.nanoTime();
+    private int maxRepairs = 20;
+    private long timeoutMillis = 1000;
+
+    private final AtomicLong candidates = new AtomicLong();
+    private final AtomicLong repairs = new AtomicLong();
+    private final AtomicLong searches = new AtomicLong();
+
+    /**
+     * @param threads Number of worker threads.
+     */
+    public PuzzleGenerator(int threads, int width, int height) {
+        if (threads < 1) throw new IllegalArgumentException("Number of threads must be positive.");
+        if (width < 1 || height < 1) throw new IllegalArgumentException("Puzzle must not be empty.");
+        this.threads = threads;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Sets probability of cell of random picture to be filled. Default is 0.55.
+     */
+    public void setDensity(double density) {
+        if (density < 0 || density > 1) throw new IllegalArgumentException("Density must be in [0, 1].");
+        this.density = density;
+    }
+
+    /**
+     * Sets seed, which makes generated puzzles reproducible. By default seed is taken from the clock.
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Sets how many cells can be flipped to make one candidate unique. Default is 20.
+     */
+    public void setMaxRepairs(int maxRepairs) {
+        if (maxRepairs < 0) throw new IllegalArgumentException("Number of repairs must not be negative.");
+        this.maxRepairs = maxRepairs;
+    }
+
+    /**
+     * Sets time limit for search on one candidate, 0 means no limit. Default is 1000 ms.
+     */
+    public void setTimeout(long timeoutMillis) {
+        if (timeoutMillis < 0) throw new IllegalArgumentException("Timeout must not be negative.");
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Generates puzzles until count of them are accepted, and adds them with their pictures to corpus.
+     * If generating some candidate fails, all workers stop and its exception is rethrown.
+     */
+    public void generate(int count, CorpusWriter out) throws IOException {
+        AtomicLong nextCandidate = new AtomicLong();
+        AtomicReference<IOException> writeError = new AtomicReference<IOException>();
+        // Candidate which failed can't be written in order, so all workers stop.
+        AtomicReference<RuntimeException> workerError = new AtomicReference<RuntimeException>();
+        // Finished candidates which can't be written before earlier ones, null if candidate was dropped.
+        Map<Long, NonogramSolution> finished = new TreeMap<Long, NonogramSolution>();
+        long[] nextToWrite = new long[1];
+        int[] written = new int[1];
+
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                while (true) {
+                    synchronized (finished) {
+                        if (written[0] >= count || writeError.get() != null || workerError.get() != null) return;
+                    }
+                    long n = nextCandidate.getAndIncrement();
+                    NonogramSolution puzzle;
+                    try {
+                        puzzle = generateOne(n);
+                    } catch (RuntimeException ex) {
+                        workerError.compareAndSet(null, ex);
+                        return;
+                    }
+                    synchronized (finished) {
+                        finished.put(n, puzzle);
+                        while (finished.containsKey(nextToWrite[0]) && written[0] < count) {
+                            NonogramSolution next = finished.remove(nextToWrite[0]++);
+                            if (next == null) continue;
+                            try {
+                                out.add(new NonogramDescription(next), next);
+                                written[0]++;
+                            } catch (IOException ex) {
+                                writeError.compareAndSet(null, ex);
+                                return;
+                            }
+                        }
+                    }
+                }
+            }, "generator-worker-" + t);
+            workers[t].start();
+        }
+
+        try {
+            for (Thread worker : workers) worker.join();
+        } catch (InterruptedException ex) {
+            for (Thread worker : workers) worker.interrupt();
+            Thread.currentThread().interrupt();
+        }
+        if (writeError.get() != null) throw writeError.get();
+        if (workerError.get() != null) throw workerError.get();
+    }
+
+    /**
+     * @return Picture of candidate number n, made unique, or null if candidate was dropped.
+     */
+    NonogramSolution generateOne(long n) {
+        candidates.incrementAndGet();
+        Random random = new Random(seed + n * 0x9E3779B97F4A7C15L);
+        NonogramSolution picture = NonogramSolution.random(width, height, random, density);
+        SearchLimits limits = (timeoutMillis > 0)
+                ? SearchLimits.NONE.withTimeout(Duration.ofMillis(timeoutMillis))
+                : SearchLimits.NONE;
+        for (int repair = 0; ; repair++) {
+            Solver solver = new Solver(new NonogramDescription(picture));
+            if (solver.solveByLines()) return picture;
+
+            searches.incrementAndGet();
+            solver.setLimits(limits);
+            NonogramSolution solution = solver.solve();
+            if (solution == null) return null;
+            if (solver.hasUniqueSolution()) return picture;
+            NonogramSolution other = solver.getCounterExample();
+            if (other == null || repair == maxRepairs) return null;
+
+            // Flip random cell where two solutions differ.
+            int differences = 0;
+            int cell = -1;
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    if (solution.getPixel(x, y) != other.getPixel(x, y) && random.nextInt(++differences) == 0) {
+                        cell = y * width + x;
+                    }
+                }
+            }
+            int x = cell % width;
+            int y = cell / width;
+            picture.SetPixel(x, y, !picture.getPixel(x, y));
+            repairs.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return Number of random pictures tried so far.
+     */
+    public long getCandidates() {
+        return candidates.get();
+    }
+
+    /**
+     * @return Number of cells flipped to make candidates unique.
+     */
+    public long getRepairs() {
+        return repairs.get();
+    }
+
+    /**
+     * @return Number of times candidates were not solved by lines alone and needed search.
+     */
+    public long getSearches() {
+        return searches.get();
+    }
+}
@@ -0,0 +1,60 @@
+package io.github.fedimser.nonolab;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Limits for a search: deadline, number of search nodes and cancellation token. Immutable.
+ * When deadline passes or node budget is used up, search stops with {@link Solver.SolveResult#TIMED_OUT}.
+ * When token is cancelled, it stops with {@link Solver.SolveResult#ABORTED}.
+ */
+public class SearchLimits {
+    public static final SearchLimits NONE = new SearchLimits(Long.MAX_VALUE, false, Long.MAX_VALUE, null);
+
+    private final long deadlineNanos;  // In terms of System.nanoTime().
+    private final boolean hasDeadline;
+    private final long maxNodes;
+    private final CancellationToken token;
+
+    private SearchLimits(long deadlineNanos, boolean hasDeadline, long maxNodes, CancellationToken token) {
+        this.deadlineNanos = deadlineNanos;
+        this.hasDeadline = hasDeadline;
+        this.maxNodes = maxNodes;
+        this.token = token;
+    }
+
+    /**
+     * @return Limits with deadline after given time from now.
+     */
+    public SearchLimits withTimeout(Duration timeout) {
+        return new SearchLimits(System.nanoTime() + timeout.toNanos(), true, maxNodes, token);
+    }
+
+    public SearchLimits withDeadline(Instant deadline) {
+        return withTimeout(Duration.between(Instant.now(), deadline));
+    }
+
+    /**
+     * @return Limits allowing at most given number of search nodes in each solver operation.
+     */
+    public SearchLimits withMaxNodes(long maxNodes) {
+        if (maxNodes < 1) throw new IllegalArgumentException("Node budget must be positive.");
+        return new SearchLimits(deadlineNanos, hasDeadline, maxNodes, token);
+    }
+
+    public SearchLimits withToken(CancellationToken token) {
+        return new SearchLimits(deadlineNanos, hasDeadline, maxNodes, token);
+    }
+
+    boolean isCancelled() {
+        return token != null && token.isCancelled();
+    }
+
+    boolean isTimeOver() {
+        return hasDeadline && System.nanoTime() - deadlineNanos >= 0;
+    }
+
+    long getMaxNodes() {
+        return maxNodes;
+    }
+}
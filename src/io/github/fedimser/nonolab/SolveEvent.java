@@ -0,0 +1,92 @@
+package io.github.fedimser.nonolab;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for one call of solve, uniqueness check or solution counting.
+ * It is recorded only when Flight Recorder is running with this event enabled,
+ * otherwise it costs almost nothing.
+ */
+@Name("io.github.fedimser.nonolab.Solve")
+@Label("Solve Nonogram")
+@Category("Nonolab")
+@Description("Solving, uniqueness check or counting of solutions of one nonogram")
+class SolveEvent extends Event {
+    @Label("Operation")
+    String operation;
+
+    @Label("Width")
+    int width;
+
+    @Label("Height")
+    int height;
+
+    @Label("Result")
+    String result;
+
+    @Label("Line Solves")
+    long lineSolves;
+
+    @Label("Propagation Passes")
+    long propagationPasses;
+
+    @Label("Nodes")
+    long nodes;
+
+    @Label("Backtracks")
+    long backtracks;
+
+    @Label("Max Depth")
+    int maxDepth;
+
+    // Counters before the operation, not recorded.
+    private transient final long startLineSolves;
+    private transient final long startPropagationPasses;
+    private transient final long startNodes;
+    private transient final long startBacktracks;
+    private transient long startNanos;
+    private transient long elapsedNanos;
+
+    SolveEvent(String operation, int width, int height, SolverStats stats) {
+        this.operation = operation;
+        this.width = width;
+        this.height = height;
+        this.startLineSolves = stats.getLineSolves();
+        this.startPropagationPasses = stats.getPropagationPasses();
+        this.startNodes = stats.getNodes();
+        this.startBacktracks = stats.getBacktracks();
+    }
+
+    /**
+     * Starts timing, both for Flight Recorder and for solver stats.
+     */
+    void start() {
+        startNanos = System.nanoTime();
+        begin();
+    }
+
+    void stop() {
+        end();
+        elapsedNanos = System.nanoTime() - startNanos;
+    }
+
+    long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Sets result and counters of work done since the event was created.
+     */
+    void setResult(String result, SolverStats stats) {
+        this.result = result;
+        this.lineSolves = stats.getLineSolves() - startLineSolves;
+        this.propagationPasses = stats.getPropagationPasses() - startPropagationPasses;
+        this.nodes = stats.getNodes() - startNodes;
+        this.backtracks = stats.getBacktracks() - startBacktracks;
+        this.maxDepth = stats.getMaxDepth();
+    }
+}
@@ -2,19 +2,34 @@ package io.github.fedimser.nonolab;
 
 
 import io.github.fedimser.nonolab.util.BitArray;
-import javafx.scene.control.Cell;
+import io.github.fedimser.nonolab.util.LongArray;
+import io.github.fedimser.nonolab.util.Storage;
 
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class Solver {
+    public final static int DEFAULT_PROBING_BUDGET = 100;
 
     public enum SolveResult {
         SOLVED,
         AMBIGUOUS,
         IMPOSSIBLE,
-        NOT_ATTEMPTED
+        NOT_ATTEMPTED,
+        TIMED_OUT,  // Deadline passed or node budget was used up.
+        ABORTED  // Search was cancelled.
     }
 
     public enum CellState{
@@ -25,213 +40,598 @@ public class Solver {
 
     private int width;
     private int height;
-    private CellState[][] cells;
+    private Grid grid;
     private NonogramDescription descr;
     private SolveResult solveResult;
 
-    private List<CellState> curRow;
-    private BitArray curRowBits;
-    private BitArray curRowFilled;  // True if necessarily filled.
-    private BitArray curRowNotEmpty;  // False if necessarily empty.
-    private int curRowLength;
-    private List<Integer> curDescription;
+    private LineSolver lineSolver = new BitLineSolver();
+    private LineCache lineCache;
+    private BranchingStrategy branching = Branching.FIRST_CELL;
+    private ValueOrder valueOrder = ValueOrder.EMPTY_FIRST;
     private boolean curRowImpossible;
+    private BitArray rowFilled;
+    private BitArray rowEmpty;
+    private BitArray columnFilled;
+    private BitArray columnEmpty;
+    private LineQueue queue;
+    private int[] pendingChanges;  // How many cells of line were decided since it was queued.
+    private int[] lineSlack;
 
     private boolean verbose=false;
     private NonogramSolution counterExample;
+    private int depth;
+    private final SolverStats stats = new SolverStats();
+    private int passLineSolves;  // Lines solved in current propagation pass.
+    private int probingBudget = DEFAULT_PROBING_BUDGET;
+    private LongArray probeResult;  // For cells decided when probing: 2*probeId+1 if filled, 2*probeId if empty.
+    private LongArray commonCells;  // Cells with the same value after both probes.
+    private int probeId;
+    private int peakSearchCapacity;  // Largest number of guesses there was room for in stack of a search.
+    private AtomicBoolean cancelled;  // Set when search should stop.
+    private SearchLimits limits = SearchLimits.NONE;
+    private long nodesAtStart;  // Nodes counted before current operation, for node budget.
+    private AtomicLong sharedNodes;  // Nodes of all tasks of parallel search, null if search is sequential.
+    private int[] reasons;  // Line which decided each cell of the trail, or ASSUMED. Null unless recorded.
+    private final static int ASSUMED = -1;
+
+    // Parallel line solving.
+    private final static int PARALLEL_LINES_GRAIN = 8;
+    private ForkJoinPool linePool;
+    private final ConcurrentLinkedQueue<LineContext> lineContexts = new ConcurrentLinkedQueue<LineContext>();
+    private int[] parallelLines;
+    private long[] parallelFilled;  // Solved lines, columns first, then rows.
+    private long[] parallelEmpty;
+    private int columnWords;
+    private int rowWords;
 
     /**
-     * Returns true if row was modified.
+     * Deduces cells of line given by its known cells.
+     * @return False if line can't be filled.
      */
-    private boolean solveRow(List<CellState> row, List<Integer> descr) {
+    private boolean solveRow(int line, BitArray filled, BitArray empty) {
+        int[] clues = descr.getClues();
+        int start = descr.getClueStart(line);
+        int count = descr.getClueCount(line);
         if(verbose) {
             StringBuilder sb = new StringBuilder("Solving row: ");
-            for (Integer x : descr) {
-                sb.append(String.valueOf(x) + " ");
+            for (int j = start; j < start + count; j++) {
+                sb.append(String.valueOf(clues[j]) + " ");
             }
             sb.append("  ");
-            for (CellState cs : row) {
-                sb.append(String.valueOf(cs.ordinal()));
-            }
+            appendLine(sb, filled, empty);
             System.out.println(sb.toString());
         }
 
-        curRow = row;
-        curDescription = descr;
-        curRowLength = row.size();
-        curRowFilled = new BitArray(curRowLength);
-        curRowNotEmpty= new BitArray(curRowLength);
-        for(int x=0;x<curRowLength;x++) {
-            curRowFilled.setBit(x, true);
-        }
-        curRowBits = new BitArray(curRowLength);
-
-        if(!solveRowRec(0,0)) {
+        boolean feasible = (lineCache == null)
+                ? lineSolver.solve(clues, start, count, filled, empty)
+                : lineCache.solve(lineSolver, clues, start, count, filled, empty);
+        if(!feasible) {
             curRowImpossible = true;
             return false;
         }
 
-        boolean changed = false;
-        for(int x=0;x<curRowLength;x++) {
-            if(row.get(x)==CellState.NOT_DECIDED) {
-                if(curRowFilled.getBit(x)) {
-                    row.set(x, CellState.FILLED);
-                    changed=true;
-                } else if(!curRowNotEmpty.getBit(x)) {
-                    row.set(x, CellState.EMPTY);
-                    changed = true;
-                }
-            }
-        }
-
-        if(changed && verbose) {
-            StringBuilder sb = new StringBuilder("Changed to: ");
-            for(CellState cs : row) {
-                sb.append(String.valueOf(cs.ordinal()));
-            }
+        if(verbose) {
+            StringBuilder sb = new StringBuilder("Solved to: ");
+            appendLine(sb, filled, empty);
             System.out.println(sb.toString());
         }
+        return true;
+    }
 
-        return changed;
+    private static void appendLine(StringBuilder sb, BitArray filled, BitArray empty) {
+        for(int x=0;x<filled.getLength();x++) {
+            CellState cs = filled.getBit(x) ? CellState.FILLED :
+                    (empty.getBit(x) ? CellState.EMPTY : CellState.NOT_DECIDED);
+            sb.append(String.valueOf(cs.ordinal()));
+        }
     }
 
     /**
-     * Recursively builds all filling variants, which correspond to given description
-     *   and existing partial filling.
-     * @param pos Position of first not determined cell.
-     * @param numsUsed How many numbers in description already used.
-     * @return True if there is at least one feasible solution.
+     * Solves queued lines until queue is empty.
+     * When a cell is decided, its crossing line is queued, so only lines with new information are solved again.
+     * @return False if contradiction was found.
      */
-    private boolean solveRowRec(int pos, int numsUsed) {
-        if(numsUsed == curDescription.size()) {
-            assert(pos<=curRowLength);
-            for(int x=pos; x < curRowLength;x++) {
-                if(curRow.get(x) == CellState.FILLED) return false;
-            }
+    private boolean propagate() {
+        long start = System.nanoTime();
+        int trailSize = grid.getTrailSize();
+        passLineSolves = 0;
+        boolean feasible = (linePool != null) ? propagateInParallel() : propagateSequentially();
+        if(!feasible) clearQueue();
+        stats.addPass(passLineSolves, grid.getTrailSize() - trailSize, System.nanoTime() - start);
+        return feasible;
+    }
 
-            //System.out.println("Rec end: " + curRowBits.toString());
+    private boolean propagateSequentially() {
+        while(!queue.isEmpty()) {
+            int line = queue.poll();
+            pendingChanges[line] = 0;
+            if(!solveLine(line)) return false;
+        }
+        return true;
+    }
 
-            curRowFilled.andWith(curRowBits);
-            curRowNotEmpty.orWith(curRowBits);
+    void clearQueue() {
+        queue.clear();
+        for(int i=0;i<width+height;i++) pendingChanges[i] = 0;
+    }
 
-            return true;
+    /**
+     * Same as propagate, but all queued columns are solved in parallel, then all queued rows, and so on.
+     * Lines are solved against the same grid and their deductions are merged after each half-pass.
+     * @return False if contradiction was found.
+     */
+    private boolean propagateInParallel() {
+        if(parallelLines == null) {
+            parallelLines = new int[width + height];
+            columnWords = (height + 63) / 64;
+            rowWords = (width + 63) / 64;
+            parallelFilled = new long[width * columnWords + height * rowWords];
+            parallelEmpty = new long[width * columnWords + height * rowWords];
         }
+        while(!queue.isEmpty()) {
+            for(int orientation=0; orientation<2; orientation++) {
+                boolean isColumn = (orientation == 0);
+                int first = isColumn ? 0 : width;
+                int last = isColumn ? width : width + height;
+                int count = 0;
+                for(int line=first; line<last; line++) {
+                    if(queue.contains(line)) {
+                        queue.remove(line);
+                        pendingChanges[line] = 0;
+                        parallelLines[count++] = line;
+                    }
+                }
+                if(count == 0) continue;
+                passLineSolves += count;
 
-        int curLen = curDescription.get(numsUsed);
-
-        // Go through all possible starts.
-        boolean feasible = false;
-        for(int x=pos;x < curRowLength;x++) {
-            if (x+curLen>curRowLength) break;
+                ParallelLinesTask task = new ParallelLinesTask(0, count);
+                if(count < PARALLEL_LINES_GRAIN) {
+                    task.compute();
+                } else {
+                    linePool.invoke(task);
+                }
+                if(task.impossible) {
+                    curRowImpossible = true;
+                    return false;
+                }
 
-            // Check that it doesn't have empty cells inside.
-            boolean canBeFilled = true;
-            for(int i=x;i<x+curLen;i++) {
-                if(curRow.get(i)==CellState.EMPTY) {
-                    canBeFilled = false;
-                    break;
+                for(int j=0; j<count; j++) {
+                    int line = parallelLines[j];
+                    int index = isColumn ? line : line - width;
+                    int words = isColumn ? columnWords : rowWords;
+                    int offset = isColumn ? index * columnWords : width * columnWords + index * rowWords;
+                    for(int i=0; i<words; i++) {
+                        applyChunk(isColumn, index, i, parallelFilled[offset + i], parallelEmpty[offset + i]);
+                    }
                 }
             }
+        }
+        return true;
+    }
+
+    /**
+     * Line solver with its own buffers. Each thread solving lines in parallel takes one of them.
+     */
+    private static class LineContext {
+        final LineSolver lineSolver;
+        final BitArray rowFilled;
+        final BitArray rowEmpty;
+        final BitArray columnFilled;
+        final BitArray columnEmpty;
 
-            // Check that right after his group cell can be empty.
-            if(canBeFilled && x+curLen<curRowLength && curRow.get(x+curLen) == CellState.FILLED) {
-                canBeFilled = false;
+        LineContext(LineSolver lineSolver, int width, int height) {
+            this.lineSolver = lineSolver;
+            this.rowFilled = new BitArray(width);
+            this.rowEmpty = new BitArray(width);
+            this.columnFilled = new BitArray(height);
+            this.columnEmpty = new BitArray(height);
+        }
+    }
+
+    /**
+     * Solves lines parallelLines[from..to) and stores results in parallelFilled and parallelEmpty.
+     * Grid is only read, so lines can be solved at the same time.
+     */
+    @SuppressWarnings("serial")  // Never serialized.
+    private class ParallelLinesTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private volatile boolean impossible;
+
+        ParallelLinesTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if(to - from > PARALLEL_LINES_GRAIN) {
+                int mid = (from + to) / 2;
+                ParallelLinesTask left = new ParallelLinesTask(from, mid);
+                ParallelLinesTask right = new ParallelLinesTask(mid, to);
+                invokeAll(left, right);
+                impossible = left.impossible || right.impossible;
+                return;
             }
 
-            if(canBeFilled) {
-                for (int i = x; i < x + curLen; i++) curRowBits.setBit(i, true);
-                int emptyCell = ((x+curLen==curRowLength)?0:1);
-                if (solveRowRec(x + curLen +  emptyCell, numsUsed + 1)) feasible = true;
-                for (int i = x; i < x + curLen; i++) curRowBits.setBit(i, false);
+            LineContext context = lineContexts.poll();
+            if(context == null) context = new LineContext(lineSolver.newInstance(), width, height);
+            for(int j=from; j<to && !impossible; j++) {
+                int line = parallelLines[j];
+                boolean isColumn = line < width;
+                int index = isColumn ? line : line - width;
+                BitArray filled = isColumn ? context.columnFilled : context.rowFilled;
+                BitArray empty = isColumn ? context.columnEmpty : context.rowEmpty;
+                if(isColumn) {
+                    grid.readColumn(index, filled, empty);
+                } else {
+                    grid.readRow(index, filled, empty);
+                }
+                int[] clues = descr.getClues();
+                int start = descr.getClueStart(line);
+                int count = descr.getClueCount(line);
+                boolean feasible = (lineCache == null)
+                        ? context.lineSolver.solve(clues, start, count, filled, empty)
+                        : lineCache.solve(context.lineSolver, clues, start, count, filled, empty);
+                if(!feasible) {
+                    impossible = true;
+                    break;
+                }
+                int offset = isColumn ? index * columnWords : width * columnWords + index * rowWords;
+                for(int i=0; i<filled.getChunksCount(); i++) {
+                    parallelFilled[offset + i] = filled.getChunk(i);
+                    parallelEmpty[offset + i] = empty.getChunk(i);
+                }
             }
+            lineContexts.add(context);
+        }
+    }
 
-            if(curRow.get(x) == CellState.FILLED) break;
+    /**
+     * Solves line and queues crossing lines for changed cells.
+     * Lines 0..width-1 are columns, lines width..width+height-1 are rows.
+     * @return False if contradiction was found.
+     */
+    private boolean solveLine(int line) {
+        passLineSolves++;
+        boolean isColumn = line < width;
+        int index = isColumn ? line : line - width;
+        BitArray filled = isColumn ? columnFilled : rowFilled;
+        BitArray empty = isColumn ? columnEmpty : rowEmpty;
+        if(isColumn) {
+            grid.readColumn(index, filled, empty);
+        } else {
+            grid.readRow(index, filled, empty);
         }
+        if(!solveRow(line, filled, empty)) return false;
 
-        return feasible;
+        for(int i=0;i<filled.getChunksCount();i++) {
+            applyChunk(isColumn, index, i, filled.getChunk(i), empty.getChunk(i));
+        }
+        return true;
     }
 
-    private boolean solveStep() {
-        boolean changed=false;
+    /**
+     * Decides cells of chunk i of the line, which are known in the solved line but not in the grid.
+     */
+    private void applyChunk(boolean isColumn, int index, int i, long filled, long empty) {
+        long newFilled = filled & ~(isColumn ? grid.getColumnFilled(index, i) : grid.getRowFilled(index, i));
+        long newEmpty = empty & ~(isColumn ? grid.getColumnEmpty(index, i) : grid.getRowEmpty(index, i));
+        while(newFilled != 0) {
+            decide(isColumn, index, 64*i + Long.numberOfTrailingZeros(newFilled), CellState.FILLED);
+            newFilled &= newFilled - 1;
+        }
+        while(newEmpty != 0) {
+            decide(isColumn, index, 64*i + Long.numberOfTrailingZeros(newEmpty), CellState.EMPTY);
+            newEmpty &= newEmpty - 1;
+        }
+    }
 
-        // Check all columns.
-        for(int x=0;x<width;x++) {
-            List<CellState> col = Arrays.asList(cells[x]);
-            if(solveRow(col, descr.getColumnDescription(x))) {
-                changed = true;
-                for(int y=0;y<height;y++)cells[x][y] = col.get(y);
-                //checkGoal();
-            }
-            if(curRowImpossible) return false;
+    /**
+     * Sets cell at position pos of given line and queues crossing line.
+     */
+    private void decide(boolean isColumn, int index, int pos, CellState state) {
+        if(reasons != null) reasons[grid.getTrailSize()] = isColumn ? index : width + index;
+        if(isColumn) {
+            grid.setCell(index, pos, state);
+            enqueueLine(width + pos);
+        } else {
+            grid.setCell(pos, index, state);
+            enqueueLine(pos);
         }
+    }
 
-        // Check all rows.
-        for(int y=0;y<height;y++) {
-            List<CellState> row = new ArrayList<CellState>();
-            for(int x=0;x<width;x++) {
-                row.add(cells[x][y]);
-            }
-            if(solveRow(row, descr.getRowDescription(y))) {
-                changed = true;
-                for(int x=0;x<width;x++)cells[x][y] = row.get(x);
-                //checkGoal();
-            }
-            if(curRowImpossible) return false;
+    /**
+     * Queues line after one of its cells was decided.
+     * Lines with more new cells and less free space are expected to give more, so they are solved first.
+     */
+    void enqueueLine(int line) {
+        pendingChanges[line]++;
+        queue.add(line, pendingChanges[line] - lineSlack[line]);
+    }
+
+    void enqueueAllLines() {
+        for(int line=0;line<width+height;line++) {
+            queue.add(line, -lineSlack[line]);
         }
+    }
 
-        return changed;
+    void enqueueCell(int x, int y) {
+        enqueueLine(x);
+        enqueueLine(width + y);
     }
 
     public Solver(NonogramDescription descr) {
+        this(descr, Storage.HEAP);
+    }
+
+    /**
+     * Creates solver which keeps its grid and other per-cell data in given storage.
+     * Off-heap storage lets solve puzzles with tens of millions of cells without heavy garbage collection.
+     * @throws IllegalArgumentException If puzzle has more than {@link Integer#MAX_VALUE} cells, in any storage.
+     */
+    public Solver(NonogramDescription descr, Storage storage) {
+        this(descr, new Grid(descr.getWidth(), descr.getHeight(), storage));
+    }
+
+    /**
+     * Creates solver working on given grid.
+     */
+    private Solver(NonogramDescription descr, Grid grid) {
         this.width = descr.getWidth();
         this.height = descr.getHeight();
         this.descr = descr;
-        this.cells = new CellState[width][height];
+        this.grid = grid;
         this.solveResult = SolveResult.NOT_ATTEMPTED;
+        this.queue = new LineQueue(width + height);
+        this.pendingChanges = new int[width + height];
+        this.lineSlack = new int[width + height];
+        this.rowFilled = new BitArray(width);
+        this.rowEmpty = new BitArray(width);
+        this.columnFilled = new BitArray(height);
+        this.columnEmpty = new BitArray(height);
+        computeSlack();
+        this.cancelled = new AtomicBoolean(false);
+    }
 
+    /**
+     * Computes number of cells in each line not covered by blocks when they are pushed together.
+     */
+    private void computeSlack() {
         for(int x=0;x<width;x++) {
-            for (int y = 0; y < height; y++) {
-                cells[x][y] = CellState.NOT_DECIDED;
-            }
+            lineSlack[x] = height - descr.getMinLength(x);
         }
+        for(int y=0;y<height;y++) {
+            lineSlack[width + y] = width - descr.getMinLength(width + y);
+        }
+    }
+
+    /**
+     * Creates solver for a subtree of parallel search, with the same settings and its own copy of the grid.
+     */
+    private Solver(Solver parent, AtomicBoolean cancelled) {
+        this(parent.descr, parent.grid.copy());
+        this.lineSolver = parent.lineSolver.newInstance();
+        this.lineCache = parent.lineCache;
+        this.branching = parent.branching;
+        this.valueOrder = parent.valueOrder;
+        this.probingBudget = parent.probingBudget;
+        this.limits = parent.limits;
+        this.depth = parent.depth;
+        this.cancelled = cancelled;
+        this.sharedNodes = parent.sharedNodes;
     }
 
     /**
-     * Solves nonogram, agreeing with <code>cells</code> and with backtracking.
+     * Deduces cells by line solving and, if enabled, by probing.
+     * @return False if contradiction was found.
      */
-    private SolveResult solveRec() {
+    private boolean deduce() {
         curRowImpossible = false;
-        while (true) {
-            boolean changed = solveStep();
-            if (curRowImpossible) return SolveResult.IMPOSSIBLE;
-            if (!changed) break;
+        if (!propagate()) return false;
+        return probingBudget == 0 || grid.isSolved() || propagateByProbing();
+    }
+
+    /**
+     * @return ABORTED or TIMED_OUT if search must stop because of limits, otherwise null.
+     */
+    private SolveResult checkLimits() {
+        if (cancelled.get() || limits.isCancelled()) return SolveResult.ABORTED;
+        long nodes = (sharedNodes == null) ? stats.getNodes() - nodesAtStart : sharedNodes.get();
+        if (nodes >= limits.getMaxNodes() || limits.isTimeOver()) {
+            return SolveResult.TIMED_OUT;
         }
+        return null;
+    }
 
-        boolean solved = true;
-        int badX=0, badY=0;
-        for(int x=0;x<width;x++) {
-            for (int y = 0; y < height; y++) {
-                if(cells[x][y] == CellState.NOT_DECIDED) {
-                    solved = false;
-                    badX = x;
-                    badY = y;
+    private void addNode(int depth) {
+        stats.addNode(depth);
+        if (sharedNodes != null) sharedNodes.incrementAndGet();
+    }
+
+    /**
+     * Depth-first search over guesses, agreeing with <code>grid</code>.
+     * Guesses are kept in explicit stack, so search can be paused after each solution,
+     * and stack depth of the thread doesn't grow with number of guesses.
+     * Lines crossing cells changed since last propagation must be queued.
+     */
+    private class Search {
+        private int[] stackTrailSize = new int[16];  // Trail size before the guess.
+        private int[] stackCell = new int[16];
+        private CellState[] stackSecond = new CellState[16];  // Value to try next, or null if both were tried.
+        private int top;
+        private final int startTrailSize;
+        private boolean started;
+
+        Search() {
+            startTrailSize = grid.getTrailSize();
+            peakSearchCapacity = Math.max(peakSearchCapacity, stackCell.length);
+        }
+
+        /**
+         * Finds next solution and leaves it in grid.
+         * @return SOLVED, IMPOSSIBLE if there are no more solutions, or TIMED_OUT or ABORTED if limits stopped search.
+         */
+        SolveResult next() {
+            boolean backtrack = started;
+            started = true;
+            while(true) {
+                if(backtrack) {
+                    while(top > 0 && stackSecond[top - 1] == null) top--;
+                    if(top == 0) {
+                        grid.undo(startTrailSize);
+                        return SolveResult.IMPOSSIBLE;
+                    }
+                    int cell = stackCell[top - 1];
+                    grid.undo(stackTrailSize[top - 1]);
+                    grid.setCell(cell % width, cell / width, stackSecond[top - 1]);
+                    enqueueCell(cell % width, cell / width);
+                    stackSecond[top - 1] = null;
+                    stats.addBacktrack();
+                }
+                SolveResult stop = checkLimits();
+                if(stop != null) return stop;
+                addNode(depth + top);
+
+                if(!deduce()) {
+                    backtrack = true;
+                    continue;
+                }
+                if(grid.isSolved()) return SolveResult.SOLVED;
+
+                int cell = branching.chooseCell(grid, descr, Solver.this);
+                int x = cell % width;
+                int y = cell / width;
+                CellState first = valueOrder.firstValue(x, y, descr);
+                if(top == stackCell.length) {
+                    stackTrailSize = Arrays.copyOf(stackTrailSize, 2 * top);
+                    stackCell = Arrays.copyOf(stackCell, 2 * top);
+                    stackSecond = Arrays.copyOf(stackSecond, 2 * top);
+                    peakSearchCapacity = Math.max(peakSearchCapacity, stackCell.length);
+                }
+                stackTrailSize[top] = grid.getTrailSize();
+                stackCell[top] = cell;
+                stackSecond[top] = (first == CellState.EMPTY) ? CellState.FILLED : CellState.EMPTY;
+                top++;
+                grid.setCell(x, y, first);
+                enqueueCell(x, y);
+                backtrack = false;
+            }
+        }
+
+        /**
+         * Undoes guesses whose other value was not tried, and what was deduced from them.
+         * Remaining cells have the same value in all solutions extending grid the search started from.
+         */
+        void undoOpenGuesses() {
+            for(int i = 0; i < top; i++) {
+                if(stackSecond[i] != null) {
+                    grid.undo(stackTrailSize[i]);
                     break;
                 }
             }
+            top = 0;
+            clearQueue();
         }
+    }
 
-        if (solved) return SolveResult.SOLVED;
+    /**
+     * Tentatively sets cell and propagates, then returns grid to current state.
+     * Grid must be propagated to fixpoint before the call.
+     * @return Number of cells decided (including given one), or -1 if it leads to contradiction.
+     */
+    int probe(int x, int y, CellState state) {
+        int trailSize = grid.getTrailSize();
+        grid.setCell(x, y, state);
+        enqueueCell(x, y);
+        curRowImpossible = false;
+        boolean feasible = propagate();
+        int decided = grid.getTrailSize() - trailSize;
+        grid.undo(trailSize);
+        curRowImpossible = false;
+        return feasible ? decided : -1;
+    }
 
-        // Go deeper.
-        CellState[][] backupCells = cloneCells();
-        cells[badX][badY]=CellState.EMPTY;
-        if(solveRec()==SolveResult.SOLVED) {
-            return SolveResult.SOLVED;
-        } else {
-          cells = backupCells;
-          cells[badX][badY] = CellState.FILLED;
-          return solveRec();
+    /**
+     * Tries both values of not decided cells, propagating each of them.
+     * If one value leads to contradiction, cell gets the other value.
+     * Cells which get the same value in both cases are decided as well.
+     * At most probingBudget cells are tried after the last deduction.
+     * Grid must be propagated to fixpoint before the call.
+     * @return False if contradiction was found.
+     */
+    private boolean propagateByProbing() {
+        int cellsCount = width * height;
+        if(probeResult == null) {
+            probeResult = grid.getStorage().allocate((cellsCount + 1) / 2);
+            commonCells = grid.getStorage().allocate((cellsCount + 1) / 2);
         }
+        int tried = 0;
+        int visited = 0;
+        for(int cell = 0; tried < probingBudget && visited < cellsCount; cell = (cell + 1) % cellsCount) {
+            if(tried > 0 && checkLimits() != null) break;
+            visited++;
+            int x = cell % width;
+            int y = cell / width;
+            if(grid.getCell(x, y) != CellState.NOT_DECIDED) continue;
+            tried++;
+            stats.addProbe();
+            int trailSize = grid.getTrailSize();
+
+            // Remember what filled cell implies.
+            probeId++;
+            grid.setCell(x, y, CellState.FILLED);
+            enqueueCell(x, y);
+            curRowImpossible = false;
+            boolean filledFeasible = propagate();
+            for(int i = trailSize; i < grid.getTrailSize(); i++) {
+                int c = grid.getTrailCell(i);
+                boolean filled = grid.getCell(c % width, c / width) == CellState.FILLED;
+                probeResult.setInt(c, 2 * probeId + (filled ? 1 : 0));
+            }
+            grid.undo(trailSize);
+
+            // Compare with what empty cell implies.
+            grid.setCell(x, y, CellState.EMPTY);
+            enqueueCell(x, y);
+            curRowImpossible = false;
+            boolean emptyFeasible = propagate();
+            int commonCount = 0;
+            if(filledFeasible && emptyFeasible) {
+                for(int i = trailSize; i < grid.getTrailSize(); i++) {
+                    int c = grid.getTrailCell(i);
+                    boolean filled = grid.getCell(c % width, c / width) == CellState.FILLED;
+                    if(probeResult.getInt(c) == 2 * probeId + (filled ? 1 : 0)) {
+                        commonCells.setInt(commonCount++, c);
+                    }
+                }
+            }
+            grid.undo(trailSize);
+            curRowImpossible = false;
+
+            if(!filledFeasible && !emptyFeasible) {
+                return false;
+            }
+            if(!filledFeasible || !emptyFeasible) {
+                grid.setCell(x, y, filledFeasible ? CellState.FILLED : CellState.EMPTY);
+                enqueueCell(x, y);
+            } else if(commonCount > 0) {
+                for(int i = 0; i < commonCount; i++) {
+                    int c = commonCells.getInt(i);
+                    grid.setCell(c % width, c / width, (probeResult.getInt(c) % 2 == 1) ? CellState.FILLED : CellState.EMPTY);
+                    enqueueCell(c % width, c / width);
+                }
+            } else {
+                continue;
+            }
+
+            // Something was deduced.
+            if(!propagate()) return false;
+            if(grid.isSolved()) break;
+            tried = 0;
+            visited = 0;
+        }
+        return true;
     }
 
     /**
@@ -239,57 +639,503 @@ public class Solver {
      * Otherwise returns null.
      */
     public NonogramSolution solve() {
-        if(solveRec() == SolveResult.IMPOSSIBLE) {
-            solveResult = SolveResult.IMPOSSIBLE;
-            return null;
-        } else {
+        return (solve(limits) == SolveResult.SOLVED) ? new NonogramSolution(grid) : null;
+    }
+
+    /**
+     * Solves nonogram within given limits. They also apply to later operations of this solver.
+     * @return SOLVED or IMPOSSIBLE, or TIMED_OUT or ABORTED if limits stopped the search.
+     * In the last two cases grid keeps cells which were deduced without unfinished guesses, see {@link #getGrid()}.
+     */
+    public SolveResult solve(SearchLimits limits) {
+        this.limits = limits;
+        SolveEvent event = beginEvent("solve");
+        grid.undo(0);
+        enqueueAllLines();
+        Search search = new Search();
+        solveResult = search.next();
+        if(solveResult == SolveResult.TIMED_OUT || solveResult == SolveResult.ABORTED) {
+            search.undoOpenGuesses();
+        }
+        endEvent(event, solveResult.toString());
+        return solveResult;
+    }
+
+    private SolveEvent beginEvent(String operation) {
+        nodesAtStart = stats.getNodes();
+        SolveEvent event = new SolveEvent(operation, width, height, stats);
+        event.start();
+        return event;
+    }
+
+    private void endEvent(SolveEvent event, String result) {
+        event.stop();
+        stats.addTime(event.getElapsedNanos());
+        if (event.shouldCommit()) {
+            event.setResult(result, stats);
+            event.commit();
+        }
+    }
+
+    /**
+     * Same as {@link #solve()}, but search subtrees are explored in parallel in the given pool.
+     * Each task works with its own copy of the grid. When one of them finds a solution, the others stop.
+     * Node budget of limits applies to all tasks together. When some task is stopped by limits, the others stop too.
+     */
+    public NonogramSolution solveParallel(ForkJoinPool pool) {
+        SolveEvent event = beginEvent("solveParallel");
+        enqueueAllLines();
+        AtomicReference<Grid> found = new AtomicReference<Grid>();
+        AtomicReference<SolveResult> stopped = new AtomicReference<SolveResult>();
+        int forkDepth = 2 + 2 * (32 - Integer.numberOfLeadingZeros(pool.getParallelism()));
+        sharedNodes = new AtomicLong();
+        try {
+            pool.invoke(new SearchTask(this, found, stopped, new AtomicBoolean(false), forkDepth, stats));
+        } finally {
+            sharedNodes = null;
+        }
+        if(found.get() != null) {
+            grid = found.get();
             solveResult = SolveResult.SOLVED;
-            return new NonogramSolution(cells);
+        } else if(stopped.get() != null) {
+            // Grid of this solver holds only deductions made before the first fork.
+            clearQueue();
+            solveResult = stopped.get();
+        } else {
+            solveResult = SolveResult.IMPOSSIBLE;
         }
+        endEvent(event, solveResult.toString());
+        return (solveResult == SolveResult.SOLVED) ? new NonogramSolution(grid) : null;
     }
 
-    private CellState[][] cloneCells() {
-        CellState[][] ret = new CellState[width][height];
-        for(int x=0;x<width;x++) {
-            for(int y=0;y<height;y++) {
-                ret[x][y] = cells[x][y];
+    public NonogramSolution solveParallel() {
+        return solveParallel(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Explores subtree of the search given by grid of its solver.
+     * Subtrees close to the root are split in two tasks, deeper ones are searched sequentially.
+     */
+    @SuppressWarnings("serial")  // Never serialized.
+    private static class SearchTask extends RecursiveAction {
+        private final Solver solver;
+        private final AtomicReference<Grid> found;
+        private final AtomicReference<SolveResult> stopped;  // Set if limits stopped some subtree.
+        private final AtomicBoolean cancelled;
+        private final int forkDepth;
+        private final SolverStats total;  // Stats of the solver which started parallel search.
+
+        SearchTask(Solver solver, AtomicReference<Grid> found, AtomicReference<SolveResult> stopped,
+                   AtomicBoolean cancelled, int forkDepth, SolverStats total) {
+            this.solver = solver;
+            this.found = found;
+            this.stopped = stopped;
+            this.cancelled = cancelled;
+            this.forkDepth = forkDepth;
+            this.total = total;
+        }
+
+        @Override
+        protected void compute() {
+            if (cancelled.get()) return;
+            try {
+                search();
+            } finally {
+                if (solver.stats != total) total.add(solver.stats);
             }
-            //System.arraycopy(cells,0,ret, 0, height);
         }
-        return ret;
-    }
 
+        private void search() {
+            SolveResult stop = solver.checkLimits();
+            if (stop == null && solver.depth >= forkDepth) {
+                stop = solver.new Search().next();
+                if (stop == SolveResult.SOLVED) report();
+                if (stop == SolveResult.IMPOSSIBLE || stop == SolveResult.SOLVED) stop = null;
+            }
+            if (stop != null) {
+                // Other tasks are cancelled when solution is found, that is not a limit.
+                // Otherwise limit is recorded before cancelling, so it is not reported as ABORTED.
+                if (found.get() == null) stopped.compareAndSet(null, stop);
+                cancelled.set(true);
+                return;
+            }
+            if (solver.depth >= forkDepth) return;
+
+            solver.addNode(solver.depth);
+            if (!solver.deduce()) return;
+            if (solver.grid.isSolved()) {
+                report();
+                return;
+            }
+
+            int cell = solver.branching.chooseCell(solver.grid, solver.descr, solver);
+            int x = cell % solver.width;
+            int y = cell / solver.width;
+            CellState first = solver.valueOrder.firstValue(x, y, solver.descr);
+            CellState second = (first == CellState.EMPTY) ? CellState.FILLED : CellState.EMPTY;
+            invokeAll(branch(x, y, first), branch(x, y, second));
+        }
 
-    private CellState flipState(CellState x) {
-        if(x==CellState.FILLED) return CellState.EMPTY;
-        else if (x==CellState.EMPTY) return CellState.FILLED;
-        else return x;
+        private SearchTask branch(int x, int y, CellState state) {
+            Solver child = new Solver(solver, cancelled);
+            child.depth++;
+            child.grid.setCell(x, y, state);
+            child.enqueueCell(x, y);
+            return new SearchTask(child, found, stopped, cancelled, forkDepth, total);
+        }
+
+        private void report() {
+            if (found.compareAndSet(null, solver.grid)) {
+                cancelled.set(true);
+            }
+        }
     }
 
+    /**
+     * Checks whether solution found by {@link #solve()} is the only one.
+     * If not, another solution can be obtained with {@link #getCounterExample()}.
+     * If limits stop the check, returns false and result becomes TIMED_OUT or ABORTED, grid keeps the solution.
+     * @throws IllegalStateException If solving was not attempted, or limits stopped it before solution was found.
+     */
     public boolean hasUniqueSolution() {
         if(solveResult == SolveResult.NOT_ATTEMPTED) throw new IllegalStateException("Solution haven't been performed.");
+        if(solveResult == SolveResult.TIMED_OUT || solveResult == SolveResult.ABORTED) {
+            throw new IllegalStateException("Solution wasn't found, search was stopped: " + solveResult + ".");
+        }
         if(solveResult == SolveResult.IMPOSSIBLE) return false;
         if(solveResult == SolveResult.AMBIGUOUS) return false;
-        assert (solveResult == SolveResult.SOLVED);
 
-        CellState[][] backupCells = cloneCells();
+        // Search for solution different from the known one. Guessed cell first gets the value opposite
+        // to the known solution, so any solution found in that branch is different from it.
+        // If there is none, the cell must have the known value, so there is nothing to backtrack to.
+        SolveEvent event = beginEvent("hasUniqueSolution");
+        NonogramSolution solution = new NonogramSolution(grid);
         boolean unique = true;
+        SolveResult stopped = null;
+        grid.undo(0);
+        enqueueAllLines();
+        while(true) {
+            stopped = checkLimits();
+            if(stopped != null || !deduce() || grid.isSolved()) break;
+            stats.addNode(0);
+            int cell = branching.chooseCell(grid, descr, this);
+            int x = cell % width;
+            int y = cell / width;
+            CellState known = solution.getPixel(x, y) ? CellState.FILLED : CellState.EMPTY;
+            CellState other = (known == CellState.FILLED) ? CellState.EMPTY : CellState.FILLED;
+
+            int trailSize = grid.getTrailSize();
+            grid.setCell(x, y, other);
+            enqueueCell(x, y);
+            SolveResult result = new Search().next();
+            if(result == SolveResult.SOLVED) {
+                counterExample = new NonogramSolution(grid);
+                unique = false;
+                break;
+            } else if(result != SolveResult.IMPOSSIBLE) {
+                stopped = result;
+                break;
+            }
+            grid.undo(trailSize);
+            grid.setCell(x, y, known);
+            enqueueCell(x, y);
+        }
+        clearQueue();
+        restoreSolution(solution);
+        if(stopped != null) {
+            solveResult = stopped;
+            endEvent(event, stopped.toString());
+            return false;
+        }
+        endEvent(event, unique ? "UNIQUE" : "NOT_UNIQUE");
+        return unique;
+    }
+
+    private void restoreSolution(NonogramSolution solution) {
+        grid.undo(0);
         for(int x=0;x<width;x++) {
             for(int y=0;y<height;y++) {
-                for(int x1=0;x1<width;x1++)
-                    for(int y1=0;y1<height;y1++)
-                        cells[x1][y1]=CellState.NOT_DECIDED;
-                cells[x][y] = flipState(backupCells[x][y]);
-
-                SolveResult res = solveRec();
-                if(res!=SolveResult.IMPOSSIBLE) {
-                    counterExample = new NonogramSolution(cells);
-                    unique = false;
+                grid.setCell(x, y, solution.getPixel(x, y) ? CellState.FILLED : CellState.EMPTY);
+            }
+        }
+    }
+
+    /**
+     * Counts solutions, but stops after finding limit of them.
+     * Afterwards result is IMPOSSIBLE, SOLVED or AMBIGUOUS. If there are solutions, grid holds the first one,
+     * and if there are several, the second one can be obtained with {@link #getCounterExample()}.
+     * If search limits stop counting, result is TIMED_OUT or ABORTED and the count is a lower bound.
+     * @return Number of solutions, or limit if there are at least that many.
+     */
+    public long countSolutions(long limit) {
+        if(limit < 1) throw new IllegalArgumentException("Limit must be positive.");
+        SolveEvent event = beginEvent("countSolutions");
+        SolutionIterator iterator = new SolutionIterator();
+        NonogramSolution first = null;
+        long count = 0;
+        while(count < limit && iterator.hasNext()) {
+            NonogramSolution solution = iterator.next();
+            if(count == 0) first = solution;
+            if(count == 1) counterExample = solution;
+            count++;
+        }
+
+        if(count > 0) restoreSolution(first);
+        if(iterator.stopped != null) {
+            solveResult = iterator.stopped;
+        } else if(count == 0) {
+            solveResult = SolveResult.IMPOSSIBLE;
+        } else {
+            solveResult = (count == 1) ? SolveResult.SOLVED : SolveResult.AMBIGUOUS;
+        }
+        endEvent(event, count + (count == limit ? "+" : ""));
+        return count;
+    }
+
+    /**
+     * Lazily enumerates all solutions, each of them exactly once.
+     * Next solution is searched for only when it is requested, continuing search from the previous one.
+     * Iterator works with grid of this solver, so solver must not be used otherwise until iteration ends.
+     * If search limits stop enumeration, it ends early and result becomes TIMED_OUT or ABORTED.
+     */
+    public Iterator<NonogramSolution> solutions() {
+        return new SolutionIterator();
+    }
+
+    /**
+     * Same as {@link #solutions()}, as a sequential stream.
+     */
+    public Stream<NonogramSolution> solutionStream() {
+        int characteristics = Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL;
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(solutions(), characteristics), false);
+    }
+
+    /**
+     * Enumerates solutions by pausing search after each of them.
+     */
+    private class SolutionIterator implements Iterator<NonogramSolution> {
+        private final Search search;
+        private SolveResult stopped;  // TIMED_OUT or ABORTED if limits stopped enumeration.
+        private boolean finished;
+        private NonogramSolution next;
+
+        SolutionIterator() {
+            nodesAtStart = stats.getNodes();
+            grid.undo(0);
+            enqueueAllLines();
+            search = new Search();
+        }
+
+        @Override
+        public boolean hasNext() {
+            if(next == null && !finished) {
+                SolveResult result = search.next();
+                if(result == SolveResult.SOLVED) {
+                    next = new NonogramSolution(grid);
+                } else {
+                    finished = true;
+                    if(result != SolveResult.IMPOSSIBLE) {
+                        stopped = result;
+                        solveResult = result;
+                        grid.undo(0);
+                        clearQueue();
+                    }
                 }
             }
+            return next != null;
         }
-        cells = backupCells;
-        return unique;
+
+        @Override
+        public NonogramSolution next() {
+            if(!hasNext()) throw new NoSuchElementException();
+            NonogramSolution solution = next;
+            next = null;
+            return solution;
+        }
+    }
+
+    /**
+     * Solves all lines until nothing more can be deduced, without probing and guessing.
+     * Afterwards grid holds deduced cells.
+     * @return True if all cells were decided, so solution is unique.
+     */
+    boolean solveByLines() {
+        grid.undo(0);
+        enqueueAllLines();
+        return propagateQueued() && grid.isSolved();
+    }
+
+    // Incremental solving, used by SolverSession.
+
+    /**
+     * Makes solver remember which line decided each cell of the trail, see {@link #findFirstDecidedBy(int)}.
+     */
+    void recordReasons() {
+        if(reasons == null) reasons = new int[width * height];
+    }
+
+    /**
+     * @return Position in the trail of the first cell decided by solving given line, or trail size if there is none.
+     * Cells before it were deduced without clues of the line.
+     */
+    int findFirstDecidedBy(int line) {
+        int trailSize = grid.getTrailSize();
+        for(int i = 0; i < trailSize; i++) {
+            if(reasons[i] == line) return i;
+        }
+        return trailSize;
+    }
+
+    /**
+     * @return Position in the trail of cell set by {@link #assume}, or -1 if cell was deduced or is not decided.
+     */
+    int findAssumed(int x, int y) {
+        int cell = y * width + x;
+        for(int i = 0; i < grid.getTrailSize(); i++) {
+            if(grid.getTrailCell(i) == cell) return (reasons[i] == ASSUMED) ? i : -1;
+        }
+        return -1;
+    }
+
+    /**
+     * Makes not decided cells from given position of the trail on, and queues lines crossing them.
+     */
+    void retract(int trailSize) {
+        for(int i = trailSize; i < grid.getTrailSize(); i++) {
+            int cell = grid.getTrailCell(i);
+            enqueueCell(cell % width, cell / width);
+        }
+        grid.undo(trailSize);
+    }
+
+    /**
+     * Sets cell, if it is not decided, and queues lines crossing it.
+     * @return False if cell is already decided with other value.
+     */
+    boolean assume(int x, int y, CellState state) {
+        CellState known = grid.getCell(x, y);
+        if(known != CellState.NOT_DECIDED) return known == state;
+        if(reasons != null) reasons[grid.getTrailSize()] = ASSUMED;
+        grid.setCell(x, y, state);
+        enqueueCell(x, y);
+        return true;
+    }
+
+    /**
+     * Replaces clues. Deductions which depend on changed lines must be retracted, and these lines queued.
+     */
+    void setDescription(NonogramDescription descr) {
+        if(descr.getWidth() != width || descr.getHeight() != height) {
+            throw new IllegalArgumentException("Description must have the same size.");
+        }
+        this.descr = descr;
+        computeSlack();
+    }
+
+    /**
+     * Solves queued lines, without probing.
+     * @return False if contradiction was found.
+     */
+    boolean propagateQueued() {
+        curRowImpossible = false;
+        return propagate();
+    }
+
+    /**
+     * Looks for two solutions agreeing with grid, which must be propagated to fixpoint.
+     * Afterwards grid is returned to its state.
+     * @param found Receives solutions which were found.
+     * @return SOLVED if there is exactly one solution, AMBIGUOUS, IMPOSSIBLE, or TIMED_OUT or ABORTED.
+     */
+    SolveResult searchFromGrid(List<NonogramSolution> found) {
+        SolveEvent event = beginEvent("searchFromGrid");
+        int trailSize = grid.getTrailSize();
+        Search search = new Search();
+        SolveResult result = search.next();
+        if(result == SolveResult.SOLVED) {
+            found.add(new NonogramSolution(grid));
+            SolveResult second = search.next();
+            if(second == SolveResult.SOLVED) {
+                found.add(new NonogramSolution(grid));
+                result = SolveResult.AMBIGUOUS;
+            } else if(second != SolveResult.IMPOSSIBLE) {
+                result = second;
+            }
+        }
+        grid.undo(trailSize);
+        clearQueue();
+        solveResult = result;
+        endEvent(event, result.toString());
+        return result;
+    }
+
+    /**
+     * Sets algorithm used to deduce cells of single lines.
+     * By default it is {@link BitLineSolver}.
+     */
+    public void setLineSolver(LineSolver lineSolver) {
+        this.lineSolver = lineSolver;
+        this.lineContexts.clear();  // They hold instances of the previous line solver.
+    }
+
+    /**
+     * Sets cache of line solutions. The same cache can be used by several solvers.
+     * Null disables caching, which is the default.
+     */
+    public void setLineCache(LineCache lineCache) {
+        this.lineCache = lineCache;
+    }
+
+    /**
+     * Enables solving lines of one orientation in parallel within each propagation pass.
+     * Pays off on large puzzles. Null disables it, which is the default.
+     */
+    public void setParallelLineSolving(ForkJoinPool pool) {
+        this.linePool = pool;
+        this.lineContexts.clear();
+    }
+
+    /**
+     * Sets strategy choosing cell to guess when line solving gets stuck.
+     * By default it is {@link Branching#FIRST_CELL}.
+     */
+    public void setBranching(BranchingStrategy branching) {
+        this.branching = branching;
+    }
+
+    /**
+     * Sets which value of the chosen cell is tried first.
+     * By default it is {@link ValueOrder#EMPTY_FIRST}.
+     */
+    public void setValueOrder(ValueOrder valueOrder) {
+        this.valueOrder = valueOrder;
+    }
+
+    /**
+     * Enables probing: when line solving gets stuck, both values of not decided cells are tried
+     * before making a guess, see {@link #propagateByProbing()}.
+     * @param budget How many cells in a row can be probed without deducing anything. 0 disables probing.
+     *               By default it is {@link #DEFAULT_PROBING_BUDGET}.
+     */
+    public void setProbingBudget(int budget) {
+        this.probingBudget = budget;
+    }
+
+    /**
+     * @return Largest number of nested guesses made so far.
+     */
+    public int getMaxDepth() {
+        return stats.getMaxDepth();
+    }
+
+    /**
+     * @return Peak number of bytes allocated for search: grid with its undo trail, arrays used for probing,
+     * and stack of guesses, counting references as 8 bytes. Branches are undone with the trail,
+     * so only the stack of guesses grows with search depth, by 16 bytes per guess.
+     */
+    public long getPeakMemoryUsage() {
+        long probing = (probeResult == null) ? 0 : 8L * (probeResult.length() + commonCells.length());
+        return grid.getMemoryUsage() + probing + 16L * peakSearchCapacity;
     }
 
     public void setVerbose(boolean verbose) {
@@ -299,4 +1145,51 @@ public class Solver {
     public NonogramSolution getCounterExample() {
         return counterExample;
     }
+
+    /**
+     * @return Counters of work done by this solver so far.
+     */
+    public SolverStats getStats() {
+        return stats;
+    }
+
+    /**
+     * @return Number of search nodes visited so far.
+     */
+    public long getNodesCount() {
+        return stats.getNodes();
+    }
+
+    /**
+     * Makes running search stop as soon as possible, with result ABORTED. Can be called from any thread.
+     * Solver can't search anymore after that, use {@link CancellationToken} to stop just one search.
+     */
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+
+    /**
+     * Sets limits for following operations.
+     */
+    public void setLimits(SearchLimits limits) {
+        this.limits = limits;
+    }
+
+    /**
+     * @return Copy of the grid: solution after successful solve, or cells deduced so far if search was stopped.
+     */
+    public Grid getGrid() {
+        return grid.copy();
+    }
+
+    /**
+     * @return Result of the last operation.
+     */
+    public SolveResult getSolveResult() {
+        return solveResult;
+    }
 }
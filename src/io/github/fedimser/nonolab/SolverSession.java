@@ -0,0 +1,166 @@
+package io.github.fedimser.nonolab;
+
+import io.github.fedimser.nonolab.Solver.CellState;
+import io.github.fedimser.nonolab.Solver.SolveResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps deductions of the solver between edits of a nonogram, for tools which let user design puzzles.
+ * Clues can be changed and cells can be pinned to given values, and then {@link #update()} reports
+ * whether the puzzle still has unique solution.
+ *
+ * <p>Solver remembers which line decided each deduced cell. Cells decided before the first cell decided
+ * by some line follow from other clues alone, so when clues of the line change, only cells from that one on
+ * are made not decided again. Likewise unpinning a cell retracts only what was deduced after it was pinned.
+ * Then line solving continues from the lines crossing retracted cells.
+ */
+public class SolverSession {
+    private final Solver solver;
+    private final int width;
+    private NonogramDescription description;
+    private final CellState[] pins;  // Value of each pinned cell, null if cell is not pinned.
+    private final List<Integer> pinnedCells = new ArrayList<Integer>();
+    private boolean changed = true;
+    private boolean stale = true;  // Queue was dropped, so all lines must be solved again.
+    private SolveResult result = SolveResult.NOT_ATTEMPTED;
+    private NonogramSolution solution;
+    private NonogramSolution counterExample;
+
+    public SolverSession(NonogramDescription description) {
+        this.solver = new Solver(description);
+        this.width = description.getWidth();
+        this.description = description;
+        this.pins = new CellState[description.getWidth() * description.getHeight()];
+        solver.recordReasons();
+    }
+
+    public void setRowClues(int y, int... clues) {
+        changeLine(description.withRowClues(y, clues), width + y);
+    }
+
+    public void setColumnClues(int x, int... clues) {
+        changeLine(description.withColumnClues(x, clues), x);
+    }
+
+    private void changeLine(NonogramDescription newDescription, int line) {
+        if (newDescription.equals(description)) return;
+        description = newDescription;
+        solver.setDescription(newDescription);
+        solver.retract(solver.findFirstDecidedBy(line));
+        solver.enqueueLine(line);
+        changed = true;
+    }
+
+    /**
+     * Requires cell to have given value in solutions.
+     */
+    public void pin(int x, int y, boolean filled) {
+        CellState state = filled ? CellState.FILLED : CellState.EMPTY;
+        int cell = y * width + x;
+        if (pins[cell] == state) return;
+        unpin(x, y);
+        pins[cell] = state;
+        pinnedCells.add(cell);
+        changed = true;
+    }
+
+    public void unpin(int x, int y) {
+        int cell = y * width + x;
+        if (pins[cell] == null) return;
+        pins[cell] = null;
+        pinnedCells.remove(Integer.valueOf(cell));
+        int position = solver.findAssumed(x, y);
+        if (position >= 0) solver.retract(position);
+        changed = true;
+    }
+
+    /**
+     * @return Value the cell is pinned to, or NOT_DECIDED if it is not pinned.
+     */
+    public CellState getPin(int x, int y) {
+        CellState state = pins[y * width + x];
+        return (state == null) ? CellState.NOT_DECIDED : state;
+    }
+
+    /**
+     * Deduces cells after changes made since previous update, and searches for up to two solutions.
+     * @return SOLVED if solution is unique, AMBIGUOUS, IMPOSSIBLE, or TIMED_OUT or ABORTED if limits stopped search.
+     */
+    public SolveResult update() {
+        if (!changed) return result;
+        changed = false;
+        solution = null;
+        counterExample = null;
+
+        if (stale) solver.enqueueAllLines();
+        boolean feasible = true;
+        for (int cell : pinnedCells) {
+            if (!solver.assume(cell % width, cell / width, pins[cell])) feasible = false;
+        }
+        if (feasible) {
+            feasible = solver.propagateQueued();
+        } else {
+            solver.clearQueue();
+        }
+        // After contradiction some queued lines were not solved, so deductions are not complete.
+        stale = !feasible;
+        if (!feasible) {
+            result = SolveResult.IMPOSSIBLE;
+            return result;
+        }
+
+        List<NonogramSolution> found = new ArrayList<NonogramSolution>(2);
+        result = solver.searchFromGrid(found);
+        if (found.size() > 0) solution = found.get(0);
+        if (found.size() > 1) counterExample = found.get(1);
+        return result;
+    }
+
+    /**
+     * Sets limits for search made by following updates.
+     */
+    public void setLimits(SearchLimits limits) {
+        solver.setLimits(limits);
+    }
+
+    public NonogramDescription getDescription() {
+        return description;
+    }
+
+    /**
+     * @return Result of the last update.
+     */
+    public SolveResult getResult() {
+        return result;
+    }
+
+    /**
+     * @return Solution found by the last update, or null.
+     */
+    public NonogramSolution getSolution() {
+        return solution;
+    }
+
+    /**
+     * @return Second solution found by the last update, or null.
+     */
+    public NonogramSolution getCounterExample() {
+        return counterExample;
+    }
+
+    /**
+     * @return Copy of the grid with cells which follow from clues and pins by line solving.
+     */
+    public Grid getGrid() {
+        return solver.getGrid();
+    }
+
+    /**
+     * @return Counters of work done by the solver so far.
+     */
+    public SolverStats getStats() {
+        return solver.getStats();
+    }
+}
@@ -0,0 +1,157 @@
+package io.github.fedimser.nonolab;
+
+/**
+ * Counters describing work done by a {@link Solver}.
+ * They are accumulated over all calls to the solver until {@link #reset()}.
+ *
+ * <p>Propagation pass is one run of line solving until no queued lines remain.
+ * Time of propagation passes is measured once per pass, so collecting it doesn't slow down solving of lines.
+ */
+public class SolverStats {
+    private long lineSolves;
+    private long propagationPasses;
+    private long cellsDeduced;
+    private long maxCellsPerPass;
+    private long probes;
+    private long nodes;
+    private int maxDepth;
+    private long backtracks;
+    private long propagationNanos;
+    private long totalNanos;
+
+    void addPass(long lineSolves, long cellsDeduced, long nanos) {
+        this.propagationPasses++;
+        this.lineSolves += lineSolves;
+        this.cellsDeduced += cellsDeduced;
+        this.maxCellsPerPass = Math.max(this.maxCellsPerPass, cellsDeduced);
+        this.propagationNanos += nanos;
+    }
+
+    void addProbe() {
+        probes++;
+    }
+
+    void addNode(int depth) {
+        nodes++;
+        if (depth > maxDepth) maxDepth = depth;
+    }
+
+    void addBacktrack() {
+        backtracks++;
+    }
+
+    void addTime(long nanos) {
+        totalNanos += nanos;
+    }
+
+    /**
+     * Adds counters of solver which explored part of the same search, e.g. in parallel.
+     */
+    synchronized void add(SolverStats other) {
+        lineSolves += other.lineSolves;
+        propagationPasses += other.propagationPasses;
+        cellsDeduced += other.cellsDeduced;
+        maxCellsPerPass = Math.max(maxCellsPerPass, other.maxCellsPerPass);
+        probes += other.probes;
+        nodes += other.nodes;
+        maxDepth = Math.max(maxDepth, other.maxDepth);
+        backtracks += other.backtracks;
+        propagationNanos += other.propagationNanos;
+    }
+
+    public void reset() {
+        lineSolves = 0;
+        propagationPasses = 0;
+        cellsDeduced = 0;
+        maxCellsPerPass = 0;
+        probes = 0;
+        nodes = 0;
+        maxDepth = 0;
+        backtracks = 0;
+        propagationNanos = 0;
+        totalNanos = 0;
+    }
+
+    /**
+     * @return Number of lines solved by line solver (including cache hits).
+     */
+    public long getLineSolves() {
+        return lineSolves;
+    }
+
+    public long getPropagationPasses() {
+        return propagationPasses;
+    }
+
+    /**
+     * @return Number of cells decided by propagation, counting again cells decided again after backtracking.
+     */
+    public long getCellsDeduced() {
+        return cellsDeduced;
+    }
+
+    public double getCellsPerPass() {
+        return (propagationPasses == 0) ? 0 : (double) cellsDeduced / propagationPasses;
+    }
+
+    public long getMaxCellsPerPass() {
+        return maxCellsPerPass;
+    }
+
+    /**
+     * @return Number of cells tried with both values while probing.
+     */
+    public long getProbes() {
+        return probes;
+    }
+
+    /**
+     * @return Number of search nodes, i.e. states of grid from which propagation was started during search.
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return Largest number of nested guesses.
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * @return Number of guesses which were undone to try the other value.
+     */
+    public long getBacktracks() {
+        return backtracks;
+    }
+
+    /**
+     * @return Time spent in propagation passes, which is mostly line solving.
+     */
+    public long getPropagationNanos() {
+        return propagationNanos;
+    }
+
+    /**
+     * @return Time spent in solve, uniqueness check and solution counting.
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * @return Time spent outside of propagation passes: probing bookkeeping, branching and backtracking.
+     */
+    public long getSearchNanos() {
+        return Math.max(0, totalNanos - propagationNanos);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("lineSolves=%d passes=%d cellsPerPass=%.1f maxCellsPerPass=%d probes=%d nodes=%d " +
+                        "maxDepth=%d backtracks=%d propagationMs=%d searchMs=%d",
+                lineSolves, propagationPasses, getCellsPerPass(), maxCellsPerPass, probes, nodes,
+                maxDepth, backtracks, propagationNanos / 1000000, getSearchNanos() / 1000000);
+    }
+}
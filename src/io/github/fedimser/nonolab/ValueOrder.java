@@ -0,0 +1,29 @@
+package io.github.fedimser.nonolab;
+
+import io.github.fedimser.nonolab.Solver.CellState;
+
+/**
+ * Order in which values of the chosen cell are tried during backtracking.
+ */
+public enum ValueOrder {
+    EMPTY_FIRST,
+    FILLED_FIRST,
+
+    /**
+     * Filled first if blocks of cell's row and column cover more than half of them on average.
+     */
+    CLUE_DENSITY;
+
+    public CellState firstValue(int x, int y, NonogramDescription description) {
+        switch (this) {
+            case EMPTY_FIRST:
+                return CellState.EMPTY;
+            case FILLED_FIRST:
+                return CellState.FILLED;
+            default:
+                double density = 0.5 * description.getRowClueSum(y) / description.getWidth() +
+                        0.5 * description.getColumnClueSum(x) / description.getHeight();
+                return (density > 0.5) ? CellState.FILLED : CellState.EMPTY;
+        }
+    }
+}
@@ -49,6 +49,27 @@ public class BitArray {
         return length;
     }
 
+    /**
+     * @return Number of 64-bit chunks holding the bits.
+     */
+    public int getChunksCount() {
+        return chunks;
+    }
+
+    /**
+     * @return Bits [64*index, 64*index+63], lowest bit first.
+     */
+    public long getChunk(int index) {
+        return bits[index];
+    }
+
+    /**
+     * Sets bits [64*index, 64*index+63]. Bits beyond length must be zero.
+     */
+    public void setChunk(int index, long value) {
+        bits[index] = value;
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
@@ -0,0 +1,92 @@
+package io.github.fedimser.nonolab.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Array split in segments of direct or memory-mapped buffers, because one buffer can't be larger than 2 GB.
+ */
+class BufferLongArray implements LongArray {
+    private static final int SEGMENT_BITS = 27;  // 1 GB segments.
+    private static final long SEGMENT_MASK = (1L << SEGMENT_BITS) - 1;
+
+    private final long length;
+    private final File directory;  // Null for direct memory.
+    private final LongBuffer[] segments;
+
+    BufferLongArray(long length, File directory) {
+        this.length = length;
+        this.directory = directory;
+        int count = (int) ((length + SEGMENT_MASK) >>> SEGMENT_BITS);
+        this.segments = new LongBuffer[count];
+        if (directory == null) {
+            for (int i = 0; i < count; i++) {
+                segments[i] = ByteBuffer.allocateDirect(8 * segmentLength(i))
+                        .order(ByteOrder.nativeOrder()).asLongBuffer();
+            }
+        } else {
+            try {
+                map(directory);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+    private int segmentLength(int i) {
+        return (int) Math.min(1L << SEGMENT_BITS, length - ((long) i << SEGMENT_BITS));
+    }
+
+    private void map(File directory) throws IOException {
+        File file = File.createTempFile("nonolab", ".bin", directory);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(8 * length);
+            FileChannel channel = raf.getChannel();
+            for (int i = 0; i < segments.length; i++) {
+                segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, 8 * ((long) i << SEGMENT_BITS),
+                        8L * segmentLength(i)).order(ByteOrder.nativeOrder()).asLongBuffer();
+            }
+        }
+        // Mapping stays valid after file is closed and, on most systems, after it is deleted.
+        if (!file.delete()) file.deleteOnExit();
+    }
+
+    @Override
+    public long length() {
+        return length;
+    }
+
+    @Override
+    public long get(long index) {
+        return segments[(int) (index >>> SEGMENT_BITS)].get((int) (index & SEGMENT_MASK));
+    }
+
+    @Override
+    public void set(long index, long value) {
+        segments[(int) (index >>> SEGMENT_BITS)].put((int) (index & SEGMENT_MASK), value);
+    }
+
+    @Override
+    public void fill(long value) {
+        for (LongBuffer segment : segments) {
+            for (int i = 0; i < segment.capacity(); i++) segment.put(i, value);
+        }
+    }
+
+    @Override
+    public LongArray copy() {
+        BufferLongArray ans = new BufferLongArray(length, directory);
+        for (int i = 0; i < segments.length; i++) {
+            LongBuffer source = segments[i].duplicate();
+            source.clear();
+            ans.segments[i].duplicate().put(source);
+        }
+        return ans;
+    }
+}
@@ -0,0 +1,43 @@
+package io.github.fedimser.nonolab.util;
+
+import java.util.Arrays;
+
+class HeapLongArray implements LongArray {
+    private final long[] data;
+
+    HeapLongArray(long length) {
+        if (length > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too large for heap storage: " + length);
+        }
+        this.data = new long[(int) length];
+    }
+
+    private HeapLongArray(long[] data) {
+        this.data = data;
+    }
+
+    @Override
+    public long length() {
+        return data.length;
+    }
+
+    @Override
+    public long get(long index) {
+        return data[(int) index];
+    }
+
+    @Override
+    public void set(long index, long value) {
+        data[(int) index] = value;
+    }
+
+    @Override
+    public void fill(long value) {
+        Arrays.fill(data, value);
+    }
+
+    @Override
+    public LongArray copy() {
+        return new HeapLongArray(data.clone());
+    }
+}
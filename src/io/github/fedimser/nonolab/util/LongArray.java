@@ -0,0 +1,34 @@
+package io.github.fedimser.nonolab.util;
+
+/**
+ * Fixed-length array of longs, which may live on heap, in direct memory or in a memory-mapped file.
+ * It can also be used as array of twice as many ints.
+ * Not thread-safe.
+ */
+public interface LongArray {
+    long length();
+
+    long get(long index);
+
+    void set(long index, long value);
+
+    /**
+     * @return Lower half of long index/2 for even index, upper half for odd index.
+     */
+    default int getInt(long index) {
+        return (int) (get(index >>> 1) >>> (32 * (index & 1)));
+    }
+
+    default void setInt(long index, int value) {
+        int shift = (int) (32 * (index & 1));
+        long word = get(index >>> 1) & ~(0xFFFFFFFFL << shift);
+        set(index >>> 1, word | ((value & 0xFFFFFFFFL) << shift));
+    }
+
+    void fill(long value);
+
+    /**
+     * @return Array with the same contents, in the same kind of storage.
+     */
+    LongArray copy();
+}
@@ -0,0 +1,103 @@
+package io.github.fedimser.nonolab.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Streaming encoder of 8-bit RGB PNG images. Rows are compressed and written as they come,
+ * so only one row and one chunk of compressed data are kept in memory.
+ * Rows use "Sub" filter, which turns runs of the same color into zeros.
+ */
+public class PngWriter implements Closeable {
+    private static final byte[] SIGNATURE = {(byte) 137, 'P', 'N', 'G', '\r', '\n', 26, '\n'};
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private final OutputStream out;
+    private final int width;
+    private final int height;
+    private final byte[] row;  // Filter type and filtered bytes of current row.
+    private final Deflater deflater;
+    private final byte[] chunk = new byte[CHUNK_SIZE];
+    private final CRC32 crc = new CRC32();
+    private int rowsWritten;
+
+    public PngWriter(OutputStream out, int width, int height) throws IOException {
+        if (width < 1 || height < 1) throw new IllegalArgumentException("Image must not be empty.");
+        if ((long) width * 3 + 1 > Integer.MAX_VALUE) throw new IllegalArgumentException("Image is too wide.");
+        this.out = out;
+        this.width = width;
+        this.height = height;
+        this.row = new byte[3 * width + 1];
+        this.deflater = new Deflater(Deflater.BEST_SPEED);
+
+        out.write(SIGNATURE);
+        byte[] header = new byte[13];
+        putInt(header, 0, width);
+        putInt(header, 4, height);
+        header[8] = 8;  // Bit depth.
+        header[9] = 2;  // Color type: RGB.
+        writeChunk("IHDR", header, header.length);
+    }
+
+    /**
+     * Writes next row.
+     * @param pixels Array with colors of the row as RGB ints, starting at offset.
+     */
+    public void writeRow(int[] pixels, int offset) throws IOException {
+        if (rowsWritten == height) throw new IllegalStateException("All rows are already written.");
+        row[0] = 1;  // Sub filter: each byte minus the same byte of previous pixel.
+        int prev = 0;
+        for (int x = 0; x < width; x++) {
+            int rgb = pixels[offset + x];
+            row[1 + 3 * x] = (byte) ((rgb >> 16) - (prev >> 16));
+            row[2 + 3 * x] = (byte) ((rgb >> 8) - (prev >> 8));
+            row[3 + 3 * x] = (byte) (rgb - prev);
+            prev = rgb;
+        }
+        deflater.setInput(row);
+        while (!deflater.needsInput()) deflate();
+        rowsWritten++;
+    }
+
+    /**
+     * Finishes image. Doesn't close the stream.
+     */
+    @Override
+    public void close() throws IOException {
+        if (rowsWritten != height) throw new IllegalStateException("Only " + rowsWritten + " rows were written.");
+        deflater.finish();
+        while (!deflater.finished()) deflate();
+        deflater.end();
+        writeChunk("IEND", chunk, 0);
+        out.flush();
+    }
+
+    private void deflate() throws IOException {
+        int length = deflater.deflate(chunk);
+        if (length > 0) writeChunk("IDAT", chunk, length);
+    }
+
+    private void writeChunk(String type, byte[] data, int length) throws IOException {
+        byte[] header = new byte[8];
+        putInt(header, 0, length);
+        for (int i = 0; i < 4; i++) header[4 + i] = (byte) type.charAt(i);
+        crc.reset();
+        crc.update(header, 4, 4);
+        crc.update(data, 0, length);
+        byte[] footer = new byte[4];
+        putInt(footer, 0, (int) crc.getValue());
+        out.write(header);
+        out.write(data, 0, length);
+        out.write(footer);
+    }
+
+    private static void putInt(byte[] buffer, int offset, int value) {
+        buffer[offset] = (byte) (value >>> 24);
+        buffer[offset + 1] = (byte) (value >>> 16);
+        buffer[offset + 2] = (byte) (value >>> 8);
+        buffer[offset + 3] = (byte) value;
+    }
+}
@@ -0,0 +1,31 @@
+package io.github.fedimser.nonolab.util;
+
+import java.io.File;
+
+/**
+ * Where large arrays are allocated.
+ * Heap is the fastest for small puzzles. Direct and mapped storage are not scanned by garbage collector,
+ * and size of mapped storage is bounded by disk rather than by memory.
+ */
+public interface Storage {
+    Storage HEAP = HeapLongArray::new;
+    Storage DIRECT = length -> new BufferLongArray(length, null);
+
+    /**
+     * @return Zero-filled array of given length.
+     */
+    LongArray allocate(long length);
+
+    /**
+     * Storage in memory-mapped temporary files in given directory.
+     * Files are deleted right after mapping where operating system allows it, otherwise on exit.
+     * Note that it doesn't lift the limit on puzzle size: cells of solver grid are indexed by int,
+     * so puzzle can have at most {@link Integer#MAX_VALUE} cells, e.g. 46340x46340.
+     */
+    static Storage mapped(File directory) {
+        if (!directory.isDirectory()) {
+            throw new IllegalArgumentException("Not a directory: " + directory);
+        }
+        return length -> new BufferLongArray(length, directory);
+    }
+}
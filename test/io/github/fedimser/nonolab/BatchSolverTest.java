@@ -0,0 +1,88 @@
+package io.github.fedimser.nonolab;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchSolverTest {
+
+    private static File write(Path dir, String name, NonogramDescription desc) throws IOException {
+        File file = dir.resolve(name).toFile();
+        desc.writeToFile(file);
+        return file;
+    }
+
+    @Test
+    public void solvesDirectory(@TempDir Path dir) throws IOException {
+        write(dir, "a.non", new NonogramDescription("2;1", "1;2"));
+        write(dir, "b.non", new NonogramDescription("1;1", "1;1"));
+        write(dir, "c.non", new NonogramDescription("1;1", "2;2"));
+        Files.write(dir.resolve("notes.txt"), "not a nonogram".getBytes());
+
+        List<File> files = BatchSolver.listPuzzles(Arrays.asList(dir.toFile()));
+        assertEquals(3, files.size());
+
+        StringWriter out = new StringWriter();
+        List<BatchSolver.Result> results = new BatchSolver(2, 0).solveAll(files, out, BatchSolver.Format.CSV);
+        assertEquals(BatchSolver.Status.UNIQUE, results.get(0).getStatus());
+        assertEquals(BatchSolver.Status.AMBIGUOUS, results.get(1).getStatus());
+        assertEquals(BatchSolver.Status.IMPOSSIBLE, results.get(2).getStatus());
+
+        String[] lines = out.toString().split("\n");
+        assertEquals(4, lines.length);
+        assertEquals("file,status,millis,nodes,unique", lines[0]);
+    }
+
+    @Test
+    public void timesOut(@TempDir Path dir) throws IOException {
+        // Pigeonhole: 14 columns need a cell each, but only 13 rows can give one. Search takes very long.
+        String columns = String.join(";", Collections.nCopies(14, "1"));
+        String rows = ";" + String.join(";", Collections.nCopies(13, "1"));
+        File file = write(dir, "hard.non", new NonogramDescription(columns, rows));
+
+        StringWriter out = new StringWriter();
+        List<BatchSolver.Result> results = new BatchSolver(1, 100).solveAll(
+                Arrays.asList(file), out, BatchSolver.Format.JSON);
+        assertEquals(BatchSolver.Status.TIMED_OUT, results.get(0).getStatus());
+        assertTrue(results.get(0).getTimeMillis() < 10000);
+        assertTrue(out.toString().startsWith("{\"file\":"));
+        assertTrue(out.toString().contains("\"status\":\"TIMED_OUT\""));
+    }
+
+    @Test
+    public void reportsErrors(@TempDir Path dir) throws IOException {
+        List<File> files = Arrays.asList(
+                write(dir, "a.non", new NonogramDescription("2;1", "1;2")),
+                write(dir, "b.non", new NonogramDescription("1;1", "1;1")));
+        AtomicInteger workers = new AtomicInteger();
+        BatchSolver batchSolver = new BatchSolver(2, 0) {
+            @Override
+            Result solveOne(File file) {
+                if (file.getName().equals("b.non")) throw new StackOverflowError();
+                return super.solveOne(file);
+            }
+        };
+        batchSolver.setThreadFactory(work -> {
+            workers.incrementAndGet();
+            return new Thread(work);
+        });
+
+        StringWriter out = new StringWriter();
+        List<BatchSolver.Result> results = batchSolver.solveAll(files, out, BatchSolver.Format.CSV);
+        assertEquals(2, workers.get());
+        assertEquals(BatchSolver.Status.UNIQUE, results.get(0).getStatus());
+        assertEquals(BatchSolver.Status.ERROR, results.get(1).getStatus());
+        assertEquals(3, out.toString().split("\n").length);
+    }
+}
@@ -0,0 +1,38 @@
+package io.github.fedimser.nonolab;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BranchingTest {
+    private static final String PICTURE = String.join("\n",
+            "X  X  ",
+            " XX X ",
+            "X X  X",
+            "  X X ",
+            " X  XX",
+            "XX X  "
+    );
+
+    @Test
+    public void everyStrategySolves() {
+        NonogramDescription desc = new NonogramDescription(new NonogramSolution(PICTURE));
+        for (Branching branching : Branching.values()) {
+            for (ValueOrder valueOrder : ValueOrder.values()) {
+                Solver solver = new Solver(desc);
+                solver.setBranching(branching);
+                solver.setValueOrder(valueOrder);
+                assertTrue(solver.solve().fitsDescription(desc));
+            }
+        }
+    }
+
+    @Test
+    public void valueOrder() {
+        NonogramDescription desc = new NonogramDescription("3;3;3", "3;3;3");
+        assertEquals(Solver.CellState.FILLED, ValueOrder.CLUE_DENSITY.firstValue(1, 1, desc));
+        assertEquals(Solver.CellState.EMPTY, ValueOrder.EMPTY_FIRST.firstValue(1, 1, desc));
+        desc = new NonogramDescription("1;1;1", "1;1;1");
+        assertEquals(Solver.CellState.EMPTY, ValueOrder.CLUE_DENSITY.firstValue(0, 1, desc));
+    }
+}
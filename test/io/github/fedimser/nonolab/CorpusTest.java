@@ -0,0 +1,92 @@
+package io.github.fedimser.nonolab;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CorpusTest {
+
+    private static List<NonFileReader.Puzzle> readNonFiles(List<File> files) throws IOException {
+        List<NonFileReader.Puzzle> ans = new ArrayList<NonFileReader.Puzzle>();
+        for (File file : files) ans.addAll(NonFileReader.readAll(file));
+        return ans;
+    }
+
+    private static void assertSamePuzzle(NonFileReader.Puzzle expected, NonFileReader.Puzzle actual) {
+        assertEquals(expected.getDescription(), actual.getDescription());
+        assertEquals(expected.getGoal(), actual.getGoal());
+    }
+
+    @Test
+    public void convertsCorpus(@TempDir Path dir) throws IOException {
+        List<File> files = BatchSolver.listPuzzles(Arrays.asList(new File("test/resources/corpus/easy"),
+                new File("test/resources/corpus/medium"), new File("test/resources/corpus/hard")));
+        List<NonFileReader.Puzzle> expected = readNonFiles(files);
+        File corpus = dir.resolve("all.nonc").toFile();
+        assertEquals(expected.size(), CorpusWriter.fromNonFiles(files, corpus));
+
+        try (CorpusReader reader = new CorpusReader(corpus)) {
+            assertEquals(expected.size(), reader.size());
+            for (int i = expected.size() - 1; i >= 0; i--) assertSamePuzzle(expected.get(i), reader.get(i));
+            int i = 0;
+            for (NonFileReader.Puzzle puzzle : reader) assertSamePuzzle(expected.get(i++), puzzle);
+            assertEquals(expected.size(), i);
+
+            File unpacked = Files.createDirectory(dir.resolve("unpacked")).toFile();
+            reader.toNonFiles(unpacked);
+            List<NonFileReader.Puzzle> actual = readNonFiles(BatchSolver.listPuzzles(Arrays.asList(unpacked)));
+            assertEquals(expected.size(), actual.size());
+            for (i = 0; i < expected.size(); i++) assertSamePuzzle(expected.get(i), actual.get(i));
+        }
+    }
+
+    @Test
+    public void storesPuzzlesWithoutGoal(@TempDir Path dir) throws IOException {
+        File corpus = dir.resolve("corpus.nonc").toFile();
+        NonogramDescription wide = new NonogramDescription(new NonogramSolution(200, 1));
+        try (CorpusWriter writer = new CorpusWriter(corpus)) {
+            writer.add(new NonogramDescription("1;200", "2"), null);
+            writer.add(wide, null);
+            writer.add(new NonogramDescription("", ""), null);
+        }
+        try (CorpusReader reader = new CorpusReader(corpus)) {
+            assertEquals(3, reader.size());
+            assertEquals(new NonogramDescription("1;200", "2"), reader.get(0).getDescription());
+            assertNull(reader.get(0).getGoal());
+            assertEquals(wide, reader.get(1).getDescription());
+            assertEquals(new NonogramDescription("", ""), reader.get(2).getDescription());
+            assertThrows(IndexOutOfBoundsException.class, () -> reader.get(3));
+        }
+
+        Files.write(corpus.toPath(), "width 1\nheight 1\nrows\n1\ncolumns\n1\n".getBytes());
+        assertThrows(IOException.class, () -> new CorpusReader(corpus));
+    }
+
+    @Test
+    public void refusesToGrowTooLarge(@TempDir Path dir) throws IOException {
+        File corpus = dir.resolve("small.nonc").toFile();
+        NonogramSolution goal = new NonogramSolution("XX X\n X  \nX XX");
+        int added = 0;
+        try (CorpusWriter writer = new CorpusWriter(corpus, 300)) {
+            assertThrows(IOException.class, () -> {
+                while (true) writer.add(new NonogramDescription(goal), goal);
+            });
+            added = writer.size();
+        }
+        assertTrue(added > 0);
+        assertTrue(corpus.length() <= 300);
+        try (CorpusReader reader = new CorpusReader(corpus)) {
+            assertEquals(added, reader.size());
+            assertEquals(goal, reader.get(added - 1).getGoal());
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package io.github.fedimser.nonolab;
+
+import io.github.fedimser.nonolab.Solver.CellState;
+import io.github.fedimser.nonolab.util.BitArray;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GridTest {
+
+    @Test
+    public void rowsAndColumnsAgree() {
+        Grid grid = new Grid(70, 3);
+        grid.setCell(65, 1, CellState.FILLED);
+        grid.setCell(2, 2, CellState.EMPTY);
+        assertEquals(CellState.FILLED, grid.getCell(65, 1));
+        assertEquals(CellState.EMPTY, grid.getCell(2, 2));
+        assertEquals(CellState.NOT_DECIDED, grid.getCell(0, 0));
+
+        BitArray filled = new BitArray(70);
+        BitArray empty = new BitArray(70);
+        grid.readRow(1, filled, empty);
+        assertTrue(filled.getBit(65));
+        assertFalse(empty.getBit(65));
+
+        BitArray columnFilled = new BitArray(3);
+        BitArray columnEmpty = new BitArray(3);
+        grid.readColumn(2, columnFilled, columnEmpty);
+        assertEquals("000", columnFilled.toString());
+        assertEquals("001", columnEmpty.toString());
+
+        grid.setCell(65, 1, CellState.NOT_DECIDED);
+        assertEquals(0, grid.getColumnFilled(65, 0));
+        assertEquals(0, grid.getRowFilled(1, 1));
+    }
+
+    @Test
+    public void findUndecidedInColumn() {
+        Grid grid = new Grid(2, 100);
+        for (int y = 0; y < 70; y++) grid.setCell(0, y, CellState.EMPTY);
+        assertEquals(70, grid.findUndecidedInColumn(0));
+        assertEquals(0, grid.findUndecidedInColumn(1));
+        for (int y = 70; y < 100; y++) grid.setCell(0, y, CellState.FILLED);
+        assertEquals(-1, grid.findUndecidedInColumn(0));
+    }
+
+    @Test
+    public void copyIsIndependent() {
+        Grid grid = new Grid(4, 4);
+        grid.setCell(1, 1, CellState.FILLED);
+        Grid copy = grid.copy();
+        grid.clear();
+        assertEquals(CellState.NOT_DECIDED, grid.getCell(1, 1));
+        assertEquals(CellState.FILLED, copy.getCell(1, 1));
+    }
+
+    @Test
+    public void undo() {
+        Grid grid = new Grid(3, 3);
+        grid.setCell(0, 0, CellState.FILLED);
+        int mark = grid.getTrailSize();
+        grid.setCell(1, 2, CellState.EMPTY);
+        grid.setCell(2, 1, CellState.FILLED);
+        assertEquals(3, grid.getTrailSize());
+        grid.undo(mark);
+        assertEquals(CellState.FILLED, grid.getCell(0, 0));
+        assertEquals(CellState.NOT_DECIDED, grid.getCell(1, 2));
+        assertEquals(CellState.NOT_DECIDED, grid.getCell(2, 1));
+        assertEquals(0, grid.getColumnEmpty(1, 0));
+        assertEquals(3, grid.getPeakTrailSize());
+        assertEquals(8 * (4 * 3 + 5), grid.getMemoryUsage());  // One word per line, trail has room for 9 ints.
+    }
+}
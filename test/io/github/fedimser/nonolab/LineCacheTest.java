@@ -0,0 +1,70 @@
+package io.github.fedimser.nonolab;
+
+import io.github.fedimser.nonolab.util.BitArray;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LineCacheTest {
+
+    private static BitArray bits(String s) {
+        BitArray a = new BitArray(s.length());
+        for (int i = 0; i < s.length(); i++) a.setBit(i, s.charAt(i) == '1');
+        return a;
+    }
+
+    @Test
+    public void returnsCachedSolution() {
+        LineCache cache = new LineCache(100);
+        LineSolver lineSolver = new BitLineSolver();
+        List<Integer> descr = Arrays.asList(3, 1);
+        for (int iter = 0; iter < 3; iter++) {
+            BitArray filled = bits("00000");
+            BitArray empty = bits("00000");
+            assertTrue(cache.solve(lineSolver, descr, filled, empty));
+            assertEquals("11101", filled.toString());
+            assertEquals("00010", empty.toString());
+        }
+        assertFalse(cache.solve(lineSolver, descr, bits("01010"), bits("10000")));
+        assertFalse(cache.solve(lineSolver, descr, bits("01010"), bits("10000")));
+        assertEquals(2, cache.getMisses());
+        assertEquals(3, cache.getHits());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void evictsWhenFull() {
+        LineCache cache = new LineCache(16);
+        LineSolver lineSolver = new BitLineSolver();
+        for (int len = 1; len <= 200; len++) {
+            cache.solve(lineSolver, Arrays.asList(len), new BitArray(len), new BitArray(len));
+        }
+        assertTrue(cache.size() <= 16);
+        assertEquals(200, cache.getMisses());
+        assertEquals(200 - cache.size(), cache.getEvictions());
+
+        cache = new LineCache(1);
+        for (int len = 1; len <= 200; len++) {
+            cache.solve(lineSolver, Arrays.asList(len), new BitArray(len), new BitArray(len));
+        }
+        assertTrue(cache.size() <= 1);
+    }
+
+    @Test
+    public void sharedBetweenSolvers() {
+        LineCache cache = new LineCache(10000);
+        Random random = new Random(1);
+        for (int i = 0; i < 20; i++) {
+            NonogramSolution sol = NonogramSolution.random(10, 10, random, 0.6);
+            NonogramDescription desc = new NonogramDescription(sol);
+            Solver solver = new Solver(desc);
+            solver.setLineCache(cache);
+            assertTrue(solver.solve().fitsDescription(desc));
+        }
+        assertTrue(cache.getHits() > 0);
+    }
+}
@@ -0,0 +1,61 @@
+package io.github.fedimser.nonolab;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LineQueueTest {
+
+    @Test
+    public void pollsByPriority() {
+        LineQueue queue = new LineQueue(5);
+        queue.add(0, 1);
+        queue.add(1, 5);
+        queue.add(2, 3);
+        queue.add(3, -2);
+        assertEquals(1, queue.poll());
+        assertEquals(2, queue.poll());
+        assertEquals(0, queue.poll());
+        assertEquals(3, queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void queuesLineOnce() {
+        LineQueue queue = new LineQueue(3);
+        queue.add(0, 2);
+        queue.add(1, 1);
+        queue.add(1, 4);
+        queue.add(0, 0);
+        assertEquals(1, queue.poll());
+        assertEquals(0, queue.poll());
+        assertTrue(queue.isEmpty());
+        assertFalse(queue.contains(0));
+    }
+
+    @Test
+    public void clear() {
+        LineQueue queue = new LineQueue(3);
+        queue.add(0, 2);
+        queue.add(2, 1);
+        queue.clear();
+        assertTrue(queue.isEmpty());
+        assertFalse(queue.contains(2));
+        queue.add(2, 1);
+        assertEquals(2, queue.poll());
+    }
+
+    @Test
+    public void remove() {
+        LineQueue queue = new LineQueue(5);
+        for (int i = 0; i < 5; i++) queue.add(i, i);
+        queue.remove(3);
+        queue.remove(0);
+        queue.remove(3);
+        assertFalse(queue.contains(3));
+        assertEquals(4, queue.poll());
+        assertEquals(2, queue.poll());
+        assertEquals(1, queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+}
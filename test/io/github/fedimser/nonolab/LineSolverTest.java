@@ -0,0 +1,96 @@
+package io.github.fedimser.nonolab;
+
+import io.github.fedimser.nonolab.util.BitArray;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LineSolverTest {
+
+    // Random line, partially revealed from random picture, so it always has a solution.
+    private static List<Integer> randomLine(Random random, int length, BitArray filled, BitArray empty) {
+        List<Integer> descr = new ArrayList<Integer>();
+        int cum = 0;
+        for (int i = 0; i < length; i++) {
+            boolean pixel = random.nextDouble() < 0.6;
+            if (random.nextDouble() < 0.3) {
+                if (pixel) filled.setBit(i, true);
+                else empty.setBit(i, true);
+            }
+            if (pixel) cum++;
+            else if (cum > 0) {descr.add(cum); cum = 0;}
+        }
+        if (cum > 0) descr.add(cum);
+        return descr;
+    }
+
+    private static void checkSame(LineSolver expected, LineSolver actual, long seed, int maxLength, boolean feasible) {
+        Random random = new Random(seed);
+        for (int iter = 0; iter < 2000; iter++) {
+            int length = 1 + random.nextInt(maxLength);
+            BitArray filled1 = new BitArray(length);
+            BitArray empty1 = new BitArray(length);
+            List<Integer> descr = randomLine(random, length, filled1, empty1);
+            if (!feasible && random.nextBoolean()) {
+                // Possibly break the line.
+                int x = random.nextInt(length);
+                filled1.setBit(x, true);
+                empty1.setBit(x, false);
+            }
+            BitArray filled2 = new BitArray(length);
+            BitArray empty2 = new BitArray(length);
+            filled2.orWith(filled1);
+            empty2.orWith(empty1);
+
+            boolean res1 = expected.solve(descr, filled1, empty1);
+            boolean res2 = actual.solve(descr, filled2, empty2);
+            assertEquals(res1, res2);
+            if (res1) {
+                assertEquals(filled1.toString(), filled2.toString());
+                assertEquals(empty1.toString(), empty2.toString());
+            }
+        }
+    }
+
+    @Test
+    public void dynamicSolverMatchesEnumeration() {
+        checkSame(new EnumerationLineSolver(), new DynamicLineSolver(), 42, 30, true);
+        checkSame(new EnumerationLineSolver(), new DynamicLineSolver(), 43, 30, false);
+    }
+
+    @Test
+    public void bitSolverMatchesEnumeration() {
+        checkSame(new EnumerationLineSolver(), new BitLineSolver(), 44, 30, true);
+        checkSame(new EnumerationLineSolver(), new BitLineSolver(), 45, 30, false);
+    }
+
+    @Test
+    public void bitSolverMatchesDynamicOnLongLines() {
+        checkSame(new DynamicLineSolver(), new BitLineSolver(), 46, 64, true);
+        checkSame(new DynamicLineSolver(), new BitLineSolver(), 47, 64, false);
+        checkSame(new DynamicLineSolver(), new BitLineSolver(), 48, 300, true);
+        checkSame(new DynamicLineSolver(), new BitLineSolver(), 49, 300, false);
+    }
+
+    @Test
+    public void solvesWithEveryLineSolver() {
+        NonogramSolution sol = new NonogramSolution(String.join("\n",
+                " XX  ",
+                " XX X",
+                "  X X",
+                " XXX ",
+                "X X  "
+        ));
+        NonogramDescription desc = new NonogramDescription(sol);
+        for (LineSolver lineSolver : new LineSolver[]{
+                new EnumerationLineSolver(), new DynamicLineSolver(), new BitLineSolver()}) {
+            Solver solver = new Solver(desc);
+            solver.setLineSolver(lineSolver);
+            assertTrue(solver.solve().fitsDescription(desc));
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package io.github.fedimser.nonolab;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NonFileReaderTest {
+
+    private static NonFileReader fromString(String text) {
+        return new NonFileReader(Channels.newChannel(new ByteArrayInputStream(text.getBytes())));
+    }
+
+    @Test
+    public void readsCluesAndGoal() throws IOException {
+        NonFileReader reader = fromString("title \"Test, 1\"\r\nwidth 3\r\nheight 2\r\n\r\n" +
+                "rows\r\n\r\n1,1\r\ncolumns\r\n1\r\n0\r\n1a,1\r\n\r\ngoal \"000101\"\r\n");
+        NonFileReader.Puzzle puzzle = reader.next();
+        assertEquals(new NonogramDescription("1;;1", ";1,1"), puzzle.getDescription());
+        assertEquals(new NonogramSolution("   \nX X"), puzzle.getGoal());
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void readsSeveralPuzzles() throws IOException {
+        NonFileReader reader = fromString("width 2\nheight 1\ncolumns\n1\n1\nrows\n2\n" +
+                "width 1\nheight 2\nrows\n1\n1\ncolumns\n2\ngoal 11\n\n\n" +
+                "width 1\nheight 1\nrows\n\ncolumns\n\n");
+        NonFileReader.Puzzle first = reader.next();
+        assertEquals(new NonogramDescription("1;1", "2"), first.getDescription());
+        assertNull(first.getGoal());
+        NonFileReader.Puzzle second = reader.next();
+        assertEquals(new NonogramDescription("2", "1;1"), second.getDescription());
+        assertEquals(new NonogramSolution("X\nX"), second.getGoal());
+        assertEquals(new NonogramDescription("", ""), reader.next().getDescription());
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void readsWrittenFile(@TempDir Path dir) throws IOException {
+        NonogramSolution sol = new NonogramSolution("XX X\n X  \nX XX");
+        File file = dir.resolve("puzzle.non").toFile();
+        sol.writeToFile(file);
+        Files.write(file.toPath(), Files.readAllBytes(file.toPath()), StandardOpenOption.APPEND);
+
+        List<NonFileReader.Puzzle> puzzles = NonFileReader.readAll(file);
+        assertEquals(2, puzzles.size());
+        for (NonFileReader.Puzzle puzzle : puzzles) {
+            assertEquals(new NonogramDescription(sol), puzzle.getDescription());
+            assertEquals(sol, puzzle.getGoal());
+        }
+        assertEquals(sol, NonogramSolution.fromFile(file));
+    }
+}
@@ -29,4 +29,26 @@ class NonogramDescriptionTest {
         testDescription("X X\n X \nX X", "1,1;1;1,1", "1,1;1;1,1");
     }
 
-}
\ No newline at end of file
+    @Test
+    public void hasPrimitiveClues() {
+        NonogramDescription desc = new NonogramDescription("2,1;;3", ";1,1;1,1;2");
+        assertEquals(3, desc.getWidth());
+        assertEquals(4, desc.getHeight());
+        assertEquals(2, desc.getColumnClueCount(0));
+        assertEquals(0, desc.getColumnClueCount(1));
+        assertEquals(1, desc.getColumnClue(0, 1));
+        assertEquals(3, desc.getColumnClue(2, 0));
+        assertEquals(2, desc.getRowClue(3, 0));
+        assertEquals(3, desc.getColumnClueSum(0));
+        assertEquals(4, desc.getColumnMinLength(0));
+        assertEquals(0, desc.getColumnMinLength(1));
+        assertEquals(2, desc.getRowClueSum(1));
+        assertEquals(3, desc.getRowMinLength(1));
+        assertEquals(List.of(1, 1), desc.getRowDescription(1));
+        assertEquals(2, desc.getDescriptionHeight());
+        assertEquals(2, desc.getDescriptionWidth());
+        assertEquals(desc, new NonogramDescription(List.of(List.of(2, 1), List.of(), List.of(3)),
+                List.of(List.of(), List.of(1, 1), List.of(1, 1), List.of(2))));
+        assertEquals(desc.hashCode(), new NonogramDescription("2,1;;3", ";1,1;1,1;2").hashCode());
+    }
+}
@@ -0,0 +1,77 @@
+package io.github.fedimser.nonolab;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NonogramDrawerTest {
+
+    private static BufferedImage blankCell() {
+        BufferedImage image = new BufferedImage(NonogramDrawer.CELL_SIZE, NonogramDrawer.CELL_SIZE,
+                BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(NonogramDrawer.BACKGROUND_COLOR);
+        g.fillRect(0, 0, image.getWidth(), image.getHeight());
+        g.dispose();
+        return image;
+    }
+
+    @Test
+    public void glyphsMatchText() {
+        for (int number = 0; number < 200; number++) {
+            BufferedImage expected = blankCell();
+            Graphics2D g = expected.createGraphics();
+            g.setColor(NonogramDrawer.CELL_COLOR);
+            g.setFont(NonogramDrawer.CLUE_FONT);
+            FontMetrics metrics = g.getFontMetrics();
+            String text = String.valueOf(number);
+            g.drawString(text, (NonogramDrawer.CELL_SIZE - metrics.stringWidth(text)) / 2,
+                    (NonogramDrawer.CELL_SIZE - metrics.getHeight()) / 2 + metrics.getAscent());
+            g.dispose();
+
+            BufferedImage actual = blankCell();
+            NonogramDrawer.Glyphs.INSTANCE.drawNumber(actual, number, 0, 0);
+            for (int y = 0; y < actual.getHeight(); y++) {
+                for (int x = 0; x < actual.getWidth(); x++) {
+                    assertEquals(expected.getRGB(x, y), actual.getRGB(x, y), "Number " + number);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void drawsAllFormats(@TempDir Path dir) throws IOException {
+        NonogramSolution sol = new NonogramSolution("XX X\n X  \nX XX");
+        for (NonogramDrawer.Format format : NonogramDrawer.Format.values()) {
+            NonogramDrawer.drawAll(sol, dir, "pic", format);
+            String extension = "." + format.getExtension();
+            BufferedImage full = ImageIO.read(dir.resolve("pic" + extension).toFile());
+            assertEquals((4 + 2) * NonogramDrawer.CELL_SIZE, full.getWidth());
+            assertEquals((3 + 2) * NonogramDrawer.CELL_SIZE, full.getHeight());
+            BufferedImage solved = ImageIO.read(dir.resolve("pic_solved" + extension).toFile());
+            assertEquals(4 * NonogramDrawer.CELL_SIZE, solved.getWidth());
+            assertNotNull(ImageIO.read(dir.resolve("pic_descr" + extension).toFile()));
+        }
+        BufferedImage png = ImageIO.read(dir.resolve("pic_solved.png").toFile());
+        assertEquals(NonogramDrawer.CELL_COLOR.getRGB(), png.getRGB(0, 0));
+        assertEquals(NonogramDrawer.BACKGROUND_COLOR.getRGB(), png.getRGB(2 * NonogramDrawer.CELL_SIZE + 1, 1));
+    }
+
+    @Test
+    public void finishesOtherPicturesOnFailure(@TempDir Path dir) throws IOException {
+        NonogramSolution sol = new NonogramSolution("XX X\n X  \nX XX");
+        // Full picture can't be written over non-empty directory.
+        Files.createFile(Files.createDirectory(dir.resolve("pic.png")).resolve("file"));
+        assertThrows(IOException.class, () -> NonogramDrawer.drawAll(sol, dir, "pic", NonogramDrawer.Format.PNG));
+        assertEquals(4 * NonogramDrawer.CELL_SIZE, ImageIO.read(dir.resolve("pic_solved.png").toFile()).getWidth());
+        assertNotNull(ImageIO.read(dir.resolve("pic_descr.png").toFile()));
+    }
+}
@@ -2,6 +2,12 @@ package io.github.fedimser.nonolab;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
 import static java.lang.String.join;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -27,7 +33,64 @@ class NonogramSolutionTest {
         ));
     }
 
+    private static List<Integer> runs(List<Boolean> line) {
+        List<Integer> ans = new ArrayList<Integer>();
+        int run = 0;
+        for (boolean pixel : line) {
+            if (pixel) {
+                run++;
+            } else if (run > 0) {
+                ans.add(run);
+                run = 0;
+            }
+        }
+        if (run > 0) ans.add(run);
+        return ans;
+    }
 
+    @Test
+    public void testDescription() {
+        Random random = new Random(5);
+        int[] sizes = {1, 2, 63, 64, 65, 130};
+        for (int width : sizes) {
+            for (int height : sizes) {
+                NonogramSolution sol = NonogramSolution.random(width, height, random, 0.6);
+                NonogramDescription desc = new NonogramDescription(sol);
+                for (int x = 0; x < width; x++) {
+                    assertEquals(runs(sol.getColumn(x)), desc.getColumnDescription(x));
+                    assertEquals(desc.getColumnDescription(x), sol.getColumnDescription(x));
+                }
+                for (int y = 0; y < height; y++) {
+                    assertEquals(runs(sol.getRow(y)), desc.getRowDescription(y));
+                    assertEquals(desc.getRowDescription(y), sol.getRowDescription(y));
+                }
+                assertTrue(sol.fitsDescription(desc));
+            }
+        }
+    }
 
+    @Test
+    public void testFitsDescription() {
+        // Wider than high, so every row is checked.
+        NonogramSolution sol = new NonogramSolution("XX X\n X  ");
+        assertTrue(sol.fitsDescription(new NonogramDescription("1;2;;1", "2,1;1")));
+        assertFalse(sol.fitsDescription(new NonogramDescription("1;2;;1", "2,1;2")));
+    }
 
-}
\ No newline at end of file
+    @Test
+    public void testEqualsAndHashCode() {
+        Random random = new Random(6);
+        Set<NonogramSolution> seen = new HashSet<NonogramSolution>();
+        for (int i = 0; i < 50; i++) {
+            NonogramSolution sol = NonogramSolution.random(70, 3, random, 0.5);
+            NonogramSolution copy = new NonogramSolution(sol.toString());
+            assertEquals(sol, copy);
+            assertEquals(sol.hashCode(), copy.hashCode());
+            assertTrue(seen.add(sol));
+            assertFalse(seen.add(copy));
+            copy.SetPixel(69, 2, !copy.getPixel(69, 2));
+            assertNotEquals(sol, copy);
+        }
+        assertNotEquals(new NonogramSolution(2, 3), new NonogramSolution(3, 2));
+    }
+}
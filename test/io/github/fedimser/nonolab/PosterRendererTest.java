@@ -0,0 +1,100 @@
+package io.github.fedimser.nonolab;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.awt.image.BufferedImage;
+import java.awt.image.RenderedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PosterRendererTest {
+
+    private static NonogramSolution randomSolution(int width, int height, long seed) {
+        Random random = new Random(seed);
+        NonogramSolution sol = new NonogramSolution(width, height);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) sol.SetPixel(x, y, random.nextInt(3) == 0);
+        }
+        return sol;
+    }
+
+    private static void assertSameImage(RenderedImage expected, BufferedImage actual) {
+        BufferedImage image = (BufferedImage) expected;
+        assertEquals(image.getWidth(), actual.getWidth());
+        assertEquals(image.getHeight(), actual.getHeight());
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                assertEquals(image.getRGB(x, y), actual.getRGB(x, y), "Pixel " + x + "," + y);
+            }
+        }
+    }
+
+    private static BufferedImage renderPng(PosterRenderer renderer, NonogramDescription des, NonogramSolution sol)
+            throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        renderer.writePng(des, sol, out);
+        return ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    @Test
+    public void pngMatchesDrawer() throws IOException {
+        NonogramSolution sol = randomSolution(13, 11, 1);
+        NonogramDescription des = new NonogramDescription(sol);
+        PosterRenderer renderer = new PosterRenderer(NonogramDrawer.CELL_SIZE);
+        assertSameImage(NonogramDrawer.drawFull(sol), renderPng(renderer, des, sol));
+        assertSameImage(NonogramDrawer.drawDescription(des), renderPng(renderer, des, null));
+        assertSameImage(NonogramDrawer.drawSolution(sol), renderPng(renderer, null, sol));
+    }
+
+    @Test
+    public void drawsAllFormats(@TempDir Path dir) throws Exception {
+        NonogramSolution sol = new NonogramSolution("XX X\n X  \nX XX");
+        PosterRenderer renderer = new PosterRenderer(40);
+        for (PosterRenderer.Format format : PosterRenderer.Format.values()) {
+            renderer.drawAll(sol, dir, "pic", format);
+        }
+        BufferedImage full = ImageIO.read(dir.resolve("pic.png").toFile());
+        assertEquals((4 + 2) * 40, full.getWidth());
+        assertEquals((3 + 2) * 40, full.getHeight());
+        for (String name : new String[]{"pic.svg", "pic_descr.svg", "pic_solved.svg"}) {
+            assertEquals("svg", DocumentBuilderFactory.newInstance().newDocumentBuilder()
+                    .parse(dir.resolve(name).toFile()).getDocumentElement().getTagName());
+        }
+    }
+
+    @Test
+    public void mergesRunsInSvg() throws IOException {
+        StringWriter out = new StringWriter();
+        new PosterRenderer(10).writeSvg(null, new NonogramSolution("XXX X\n     "), out);
+        String svg = out.toString();
+        assertTrue(svg.contains("<rect x=\"0\" y=\"0\" width=\"30\" height=\"10\"/>"));
+        assertTrue(svg.contains("<rect x=\"40\" y=\"0\" width=\"10\" height=\"10\"/>"));
+    }
+
+    @Test
+    public void rendersLargePuzzle() throws IOException {
+        NonogramSolution sol = randomSolution(1000, 1000, 2);
+        NonogramDescription des = new NonogramDescription(sol);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new PosterRenderer(5).writePng(des, sol, out);
+
+        // Picture is too large to decode in test, so only its header and end are checked.
+        ByteBuffer png = ByteBuffer.wrap(out.toByteArray());
+        assertEquals(0x89504E470D0A1A0AL, png.getLong(0));
+        assertEquals(13, png.getInt(8));
+        assertEquals(0x49484452, png.getInt(12));  // "IHDR".
+        assertEquals((des.getDescriptionWidth() + 1000) * 5, png.getInt(16));
+        assertEquals((des.getDescriptionHeight() + 1000) * 5, png.getInt(20));
+        assertEquals(0x49454E44, png.getInt(png.limit() - 8));  // "IEND".
+    }
+}
@@ -0,0 +1,75 @@
+package io.github.fedimser.nonolab;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PuzzleGeneratorTest {
+
+    private static File generate(File file, int threads, int count) throws IOException {
+        PuzzleGenerator generator = new PuzzleGenerator(threads, 12, 10);
+        generator.setSeed(7);
+        generator.setTimeout(0);
+        try (CorpusWriter writer = new CorpusWriter(file)) {
+            generator.generate(count, writer);
+        }
+        assertTrue(generator.getCandidates() >= count);
+        return file;
+    }
+
+    @Test
+    public void generatesUniquePuzzles(@TempDir Path dir) throws IOException {
+        File file = generate(dir.resolve("generated.nonc").toFile(), 2, 30);
+        try (CorpusReader reader = new CorpusReader(file)) {
+            assertEquals(30, reader.size());
+            for (NonFileReader.Puzzle puzzle : reader) {
+                Solver solver = new Solver(puzzle.getDescription());
+                assertEquals(puzzle.getGoal(), solver.solve());
+                assertTrue(solver.hasUniqueSolution());
+            }
+        }
+    }
+
+    @Test
+    public void sameSeedGivesSameCorpus(@TempDir Path dir) throws IOException {
+        File first = generate(dir.resolve("first.nonc").toFile(), 1, 20);
+        File second = generate(dir.resolve("second.nonc").toFile(), 3, 20);
+        assertArrayEquals(Files.readAllBytes(first.toPath()), Files.readAllBytes(second.toPath()));
+    }
+
+    @Test
+    public void repairsAmbiguousPicture() {
+        // Low density gives pictures which are rarely unique without repairs.
+        PuzzleGenerator generator = new PuzzleGenerator(1, 15, 15);
+        generator.setDensity(0.3);
+        generator.setSeed(1);
+        for (long n = 0; n < 10; n++) {
+            NonogramSolution picture = generator.generateOne(n);
+            if (picture == null) continue;
+            Solver solver = new Solver(new NonogramDescription(picture));
+            solver.solve();
+            assertTrue(solver.hasUniqueSolution());
+        }
+        assertTrue(generator.getRepairs() > 0);
+    }
+
+    @Test
+    public void stopsWhenCandidateFails(@TempDir Path dir) throws IOException {
+        PuzzleGenerator generator = new PuzzleGenerator(2, 8, 8) {
+            @Override
+            NonogramSolution generateOne(long n) {
+                if (n == 3) throw new IllegalStateException("Broken candidate.");
+                return super.generateOne(n);
+            }
+        };
+        try (CorpusWriter writer = new CorpusWriter(dir.resolve("generated.nonc").toFile())) {
+            assertThrows(IllegalStateException.class, () -> generator.generate(1000, writer));
+        }
+    }
+}
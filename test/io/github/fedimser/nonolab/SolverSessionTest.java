@@ -0,0 +1,130 @@
+package io.github.fedimser.nonolab;
+
+import io.github.fedimser.nonolab.Solver.CellState;
+import io.github.fedimser.nonolab.Solver.SolveResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SolverSessionTest {
+
+    private static NonogramSolution randomSolution(int width, int height, Random random) {
+        NonogramSolution sol = new NonogramSolution(width, height);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) sol.SetPixel(x, y, random.nextInt(5) < 3);
+        }
+        return sol;
+    }
+
+    private static int[] rowClues(NonogramDescription descr, int y) {
+        return descr.getRowDescription(y).stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int[] columnClues(NonogramDescription descr, int x) {
+        return descr.getColumnDescription(x).stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    @Test
+    public void reportsChangesOfUniqueness() {
+        SolverSession session = new SolverSession(new NonogramDescription("1;1;1", "1;1;1"));
+        assertEquals(SolveResult.AMBIGUOUS, session.update());
+        session.pin(0, 0, true);
+        session.pin(1, 1, true);
+        assertEquals(SolveResult.SOLVED, session.update());
+        assertEquals(new NonogramSolution("X  \n X \n  X"), session.getSolution());
+
+        session.setRowClues(2);
+        assertEquals(SolveResult.IMPOSSIBLE, session.update());
+        session.setRowClues(0, 1, 1);
+        assertEquals(SolveResult.SOLVED, session.update());
+        session.pin(1, 1, false);
+        assertEquals(SolveResult.IMPOSSIBLE, session.update());
+        session.unpin(1, 1);
+        assertEquals(SolveResult.SOLVED, session.update());
+        assertEquals(new NonogramSolution("X X\n X \n   "), session.getSolution());
+        assertEquals(CellState.FILLED, session.getPin(0, 0));
+        assertEquals(CellState.NOT_DECIDED, session.getPin(1, 1));
+    }
+
+    @Test
+    public void agreesWithSolvingFromScratch() {
+        Random random = new Random(42);
+        int width = 15;
+        int height = 12;
+        NonogramSolution picture = randomSolution(width, height, random);
+        NonogramDescription goal = new NonogramDescription(picture);
+        SolverSession session = new SolverSession(goal);
+        List<Integer> changedLines = new ArrayList<Integer>();
+        List<Integer> pinnedCells = new ArrayList<Integer>();
+        Map<SolveResult, Integer> results = new EnumMap<SolveResult, Integer>(SolveResult.class);
+        for (int step = 0; step < 300; step++) {
+            int action = random.nextInt(10);
+            int x = random.nextInt(width);
+            int y = random.nextInt(height);
+            if (action < 2) {
+                // Clues of another picture, which usually make the puzzle impossible.
+                NonogramDescription other = new NonogramDescription(randomSolution(width, height, random));
+                if (random.nextBoolean()) {
+                    session.setRowClues(y, rowClues(other, y));
+                    changedLines.add(width + y);
+                } else {
+                    session.setColumnClues(x, columnClues(other, x));
+                    changedLines.add(x);
+                }
+            } else if (action < 5 && !changedLines.isEmpty()) {
+                int line = changedLines.remove(random.nextInt(changedLines.size()));
+                if (line < width) {
+                    session.setColumnClues(line, columnClues(goal, line));
+                } else {
+                    session.setRowClues(line - width, rowClues(goal, line - width));
+                }
+            } else if (action < 7) {
+                boolean wrong = random.nextInt(8) == 0;
+                session.pin(x, y, picture.getPixel(x, y) != wrong);
+                pinnedCells.add(y * width + x);
+            } else if (!pinnedCells.isEmpty()) {
+                int cell = pinnedCells.remove(random.nextInt(pinnedCells.size()));
+                session.unpin(cell % width, cell / width);
+            }
+            SolveResult result = session.update();
+            results.merge(result, 1, Integer::sum);
+
+            SolverSession fresh = new SolverSession(session.getDescription());
+            boolean pinned = false;
+            for (int i = 0; i < width; i++) {
+                for (int j = 0; j < height; j++) {
+                    CellState pin = session.getPin(i, j);
+                    if (pin != CellState.NOT_DECIDED) {
+                        fresh.pin(i, j, pin == CellState.FILLED);
+                        pinned = true;
+                    }
+                }
+            }
+            assertEquals(fresh.update(), result, "Step " + step);
+            if (result != SolveResult.IMPOSSIBLE) {
+                Grid expected = fresh.getGrid();
+                Grid actual = session.getGrid();
+                for (int i = 0; i < width; i++) {
+                    for (int j = 0; j < height; j++) {
+                        assertEquals(expected.getCell(i, j), actual.getCell(i, j), "Step " + step);
+                    }
+                }
+            }
+            if (!pinned) {
+                Solver solver = new Solver(session.getDescription());
+                solver.countSolutions(2);
+                assertEquals(solver.getSolveResult(), result, "Step " + step);
+            }
+            if (result == SolveResult.SOLVED || result == SolveResult.AMBIGUOUS) {
+                assertTrue(session.getSolution().fitsDescription(session.getDescription()));
+            }
+        }
+        assertTrue(results.getOrDefault(SolveResult.IMPOSSIBLE, 0) < 250, results.toString());
+    }
+}
@@ -0,0 +1,76 @@
+package io.github.fedimser.nonolab;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SolverStatsTest {
+    private static NonogramDescription hardPuzzle() throws IOException {
+        return NonogramDescription.fromFile(new File("test/resources/corpus/hard/h00_20x20.non"));
+    }
+
+    @Test
+    public void countsWork() throws IOException {
+        Solver solver = new Solver(hardPuzzle());
+        solver.setProbingBudget(0);
+        solver.solve();
+        SolverStats stats = solver.getStats();
+        assertTrue(stats.getLineSolves() > 0);
+        assertTrue(stats.getPropagationPasses() > 0);
+        assertTrue(stats.getCellsDeduced() >= 400);
+        assertTrue(stats.getCellsPerPass() > 0);
+        assertTrue(stats.getMaxDepth() >= 3);
+        assertTrue(stats.getNodes() > stats.getMaxDepth());
+        assertTrue(stats.getBacktracks() > 0);
+        assertEquals(0, stats.getProbes());
+        assertTrue(stats.getPropagationNanos() <= stats.getTotalNanos());
+
+        long nodes = stats.getNodes();
+        solver.hasUniqueSolution();
+        assertTrue(stats.getNodes() > nodes);
+
+        stats.reset();
+        assertEquals(0, stats.getNodes());
+        assertEquals(0, stats.getTotalNanos());
+    }
+
+    @Test
+    public void countsParallelSearch() throws IOException {
+        Solver solver = new Solver(hardPuzzle());
+        solver.setProbingBudget(0);
+        solver.solveParallel();
+        assertTrue(solver.getStats().getNodes() > 1);
+        assertTrue(solver.getStats().getLineSolves() > 0);
+    }
+
+    @Test
+    public void recordsFlightRecorderEvents(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("solver.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("io.github.fedimser.nonolab.Solve");
+            recording.start();
+            Solver solver = new Solver(hardPuzzle());
+            solver.solve();
+            solver.hasUniqueSolution();
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        assertEquals(2, events.size());
+        assertEquals("solve", events.get(0).getString("operation"));
+        assertEquals("SOLVED", events.get(0).getString("result"));
+        assertEquals(20, events.get(0).getInt("width"));
+        assertTrue(events.get(0).getLong("lineSolves") > 0);
+        assertEquals("UNIQUE", events.get(1).getString("result"));
+    }
+}
@@ -1,13 +1,23 @@
 package io.github.fedimser.nonolab;
 
+import io.github.fedimser.nonolab.util.Storage;
 import io.github.fedimser.nonolab.util.WebLoader;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.*;
+import java.lang.management.ManagementFactory;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -70,6 +80,26 @@ class SolverTest {
         }
     }
 
+    @Test
+    public void testCorpus() throws IOException {
+        // Offline corpus of graded nonograms, each has unique solution given as goal.
+        Path corpus = new File("").getAbsoluteFile().toPath().resolve("test/resources/corpus");
+        for (String grade : new String[]{"easy", "medium", "hard"}) {
+            File[] files = corpus.resolve(grade).toFile().listFiles();
+            assertNotNull(files);
+            assertTrue(files.length > 0);
+            for (File file : files) {
+                NonogramDescription descr = NonogramDescription.fromFile(file);
+                NonogramSolution goal = NonogramSolution.fromFile(file);
+                assertEquals(new NonogramDescription(goal), descr);
+
+                Solver solver = new Solver(descr);
+                assertEquals(goal, solver.solve());
+                assertTrue(solver.hasUniqueSolution(), file.getName());
+            }
+        }
+    }
+
     @Test
     public void testBackTracking() {
         NonogramSolution s1 = new NonogramSolution("X \n X");
@@ -83,4 +113,245 @@ class SolverTest {
         assertFalse(solver.hasUniqueSolution());
     }
 
-}
\ No newline at end of file
+
+    @Test
+    public void testMemoryDoesNotGrowWithDepth() {
+        // Diagonal blocks, each of them can be flipped, so solver has to guess.
+        StringBuilder sb = new StringBuilder();
+        int n = 40;
+        for (int y = 0; y < n; y++) {
+            for (int x = 0; x < n; x++) {
+                sb.append((x / 2 == y / 2 && x % 2 == y % 2) ? 'X' : ' ');
+            }
+            if (y != n - 1) sb.append('\n');
+        }
+        NonogramDescription desc = new NonogramDescription(new NonogramSolution(sb.toString()));
+        new Solver(desc).solve();  // Warm up, so that loading classes is not counted.
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        Solver solver = new Solver(desc);
+        assertTrue(solver.solve().fitsDescription(desc));
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        assertTrue(solver.getMaxDepth() >= n / 2 - 1);
+
+        // Copying the board for each guess would allocate at least its bitplanes per level.
+        long bitplanes = 4 * 8 * n;  // One word per line in each of four bitplanes.
+        if (allocatedBefore >= 0) {
+            assertTrue(allocated < solver.getMaxDepth() * bitplanes / 4, "Allocated " + allocated + " bytes");
+        }
+        assertTrue(solver.getGrid().getPeakTrailSize() <= n * n);
+        // Probing keeps an int for each cell in two arrays, the rest is stack of guesses.
+        long searchStack = solver.getPeakMemoryUsage() - solver.getGrid().getMemoryUsage() - 8L * n * n;
+        assertTrue(searchStack >= 16L * solver.getMaxDepth(), "Stack takes " + searchStack + " bytes");
+        assertTrue(searchStack <= 16L * Math.max(16, 2 * solver.getMaxDepth()));
+    }
+
+    @Test
+    public void testProbing() {
+        NonogramSolution sol = new NonogramSolution(String.join("\n",
+                " XX  X X",
+                "   X  X ",
+                "XX  XX  ",
+                "X  X X X",
+                " XXX   X",
+                "X XX   X",
+                " X  XXX ",
+                " X   X  "
+        ));
+        NonogramDescription desc = new NonogramDescription(sol);
+
+        Solver solver = new Solver(desc);
+        solver.setProbingBudget(0);
+        assertEquals(sol, solver.solve());
+        assertTrue(solver.getMaxDepth() > 0);
+
+        solver = new Solver(desc);
+        solver.setProbingBudget(Solver.DEFAULT_PROBING_BUDGET);
+        assertEquals(sol, solver.solve());
+        assertEquals(0, solver.getMaxDepth());
+        assertTrue(solver.hasUniqueSolution());
+    }
+
+    @Test
+    public void testSolveParallel() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        Random random = new Random(5);
+        for (int i = 0; i < 20; i++) {
+            NonogramDescription desc = new NonogramDescription(NonogramSolution.random(20, 20, random, 0.5));
+            Solver solver = new Solver(desc);
+            solver.setProbingBudget(0);
+            assertTrue(solver.solveParallel(pool).fitsDescription(desc));
+        }
+
+        Solver solver = new Solver(new NonogramDescription("1;1", "2;2"));
+        assertNull(solver.solveParallel(pool));
+        pool.shutdown();
+    }
+
+    @Test
+    public void testCounterExample() {
+        Random random = new Random(11);
+        int ambiguous = 0;
+        for (int i = 0; i < 20; i++) {
+            NonogramDescription desc = new NonogramDescription(NonogramSolution.random(30, 30, random, 0.5));
+            Solver solver = new Solver(desc);
+            NonogramSolution solution = solver.solve();
+            if (!solver.hasUniqueSolution()) {
+                ambiguous++;
+                NonogramSolution other = solver.getCounterExample();
+                assertTrue(other.fitsDescription(desc));
+                assertNotEquals(solution, other);
+            }
+        }
+        assertTrue(ambiguous > 0);
+    }
+
+    @Test
+    public void testCountSolutions() {
+        // Permutation matrices.
+        NonogramDescription desc = new NonogramDescription("1;1;1;1;1", "1;1;1;1;1");
+        Solver solver = new Solver(desc);
+        assertEquals(120, solver.countSolutions(1000));
+        assertEquals(Solver.SolveResult.AMBIGUOUS, solver.getSolveResult());
+        assertEquals(10, solver.countSolutions(10));
+        assertFalse(solver.hasUniqueSolution());
+        assertTrue(solver.getCounterExample().fitsDescription(desc));
+
+        solver = new Solver(new NonogramDescription("2;1", "1;2"));
+        assertEquals(1, solver.countSolutions(10));
+        assertTrue(solver.hasUniqueSolution());
+
+        solver = new Solver(new NonogramDescription("1;1", "2;2"));
+        assertEquals(0, solver.countSolutions(10));
+        assertEquals(Solver.SolveResult.IMPOSSIBLE, solver.getSolveResult());
+    }
+
+    @Test
+    public void testSolutionStream() {
+        NonogramDescription desc = new NonogramDescription("1;1;1;1;1;1", "1;1;1;1;1;1");
+        Solver solver = new Solver(desc);
+        Set<String> solutions = solver.solutionStream()
+                .peek(solution -> assertTrue(solution.fitsDescription(desc)))
+                .map(NonogramSolution::toString)
+                .collect(Collectors.toSet());
+        assertEquals(720, solutions.size());
+
+        assertEquals(3, new Solver(desc).solutionStream().limit(3).count());
+    }
+
+    @Test
+    public void testOffHeapStorage(@TempDir File dir) {
+        Random random = new Random(13);
+        NonogramDescription desc = new NonogramDescription(NonogramSolution.random(150, 120, random, 0.7));
+        Solver heapSolver = new Solver(desc);
+        NonogramSolution expected = heapSolver.solve();
+        boolean unique = heapSolver.hasUniqueSolution();
+
+        Storage mapped = Storage.mapped(dir);
+        for (Storage storage : new Storage[]{Storage.DIRECT, mapped}) {
+            Solver solver = new Solver(desc, storage);
+            assertEquals(expected, solver.solve());
+            assertEquals(unique, solver.hasUniqueSolution());
+        }
+    }
+
+    @Test
+    public void testParallelLineSolving() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        Random random = new Random(7);
+        for (int i = 0; i < 5; i++) {
+            NonogramDescription desc = new NonogramDescription(NonogramSolution.random(70, 60, random, 0.6));
+            Solver solver = new Solver(desc);
+            solver.setProbingBudget(0);
+            NonogramSolution expected = solver.solve();
+
+            solver = new Solver(desc);
+            solver.setProbingBudget(0);
+            solver.setParallelLineSolving(pool);
+            assertEquals(expected, solver.solve());
+
+            // Lines solved in parallel must use the new line solver too.
+            AtomicInteger instances = new AtomicInteger();
+            solver.setLineSolver(new DynamicLineSolver() {
+                @Override
+                public LineSolver newInstance() {
+                    instances.incrementAndGet();
+                    return super.newInstance();
+                }
+            });
+            assertEquals(expected, solver.solve());
+            assertTrue(instances.get() > 0);
+        }
+
+        Solver solver = new Solver(new NonogramDescription("1;1", "2;2"));
+        solver.setParallelLineSolving(pool);
+        assertNull(solver.solve());
+        pool.shutdown();
+    }
+
+    @Test
+    public void testSearchLimits() {
+        // Pigeonhole: 14 columns need a cell each, but only 13 rows can give one. Search takes very long.
+        String columns = String.join(";", Collections.nCopies(14, "1"));
+        String rows = ";" + String.join(";", Collections.nCopies(13, "1"));
+        NonogramDescription desc = new NonogramDescription(columns, rows);
+
+        Solver solver = new Solver(desc);
+        assertEquals(Solver.SolveResult.TIMED_OUT, solver.solve(SearchLimits.NONE.withMaxNodes(50)));
+        assertTrue(solver.getStats().getNodes() <= 50);
+        Grid grid = solver.getGrid();
+        for (int x = 0; x < 14; x++) assertEquals(Solver.CellState.EMPTY, grid.getCell(x, 0));
+        assertFalse(grid.isSolved());
+
+        solver = new Solver(desc);
+        assertEquals(Solver.SolveResult.TIMED_OUT, solver.solve(SearchLimits.NONE.withTimeout(Duration.ofMillis(50))));
+
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+        solver = new Solver(desc);
+        assertEquals(Solver.SolveResult.ABORTED, solver.solve(SearchLimits.NONE.withToken(token)));
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        solver = new Solver(desc);
+        solver.setLimits(SearchLimits.NONE.withMaxNodes(50));
+        assertNull(solver.solveParallel(pool));
+        assertEquals(Solver.SolveResult.TIMED_OUT, solver.getSolveResult());
+        // Each task can count one node after another task used up the budget.
+        assertTrue(solver.getStats().getNodes() <= 50 + pool.getParallelism(), solver.getStats().toString());
+        pool.shutdown();
+
+        solver = new Solver(new NonogramDescription("1;1;1;1;1", "1;1;1;1;1"));
+        solver.setLimits(SearchLimits.NONE.withMaxNodes(20));
+        assertTrue(solver.countSolutions(1000) < 120);
+        assertEquals(Solver.SolveResult.TIMED_OUT, solver.getSolveResult());
+    }
+
+    @Test
+    public void testUniquenessNeedsSolution() throws IOException {
+        Solver solver = new Solver(NonogramDescription.fromFile(new File("test/resources/corpus/hard/h05_30x30.non")));
+        solver.setProbingBudget(0);
+        assertEquals(Solver.SolveResult.TIMED_OUT, solver.solve(SearchLimits.NONE.withMaxNodes(2)));
+        assertThrows(IllegalStateException.class, solver::hasUniqueSolution);
+        assertNull(solver.getCounterExample());
+    }
+
+    @Test
+    public void testDeepSearchOnSmallStack() throws InterruptedException {
+        // Permutation matrices. Most guesses decide just one cell, so there are tens of thousands nested guesses.
+        int n = 300;
+        NonogramSolution sol = new NonogramSolution(n, n);
+        for (int x = 0; x < n; x++) sol.SetPixel(x, x, true);
+        NonogramDescription desc = new NonogramDescription(sol);
+        NonogramSolution[] result = new NonogramSolution[1];
+        Thread thread = new Thread(null, () -> {
+            Solver solver = new Solver(desc);
+            solver.setProbingBudget(0);
+            result[0] = solver.solve();
+        }, "small-stack", 1 << 17);
+        thread.start();
+        thread.join();
+        assertNotNull(result[0]);
+        assertTrue(result[0].fitsDescription(desc));
+    }
+}
@@ -0,0 +1,52 @@
+package io.github.fedimser.nonolab.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StorageTest {
+    private void checkArray(Storage storage) {
+        LongArray a = storage.allocate(100);
+        assertEquals(100, a.length());
+        assertEquals(0, a.get(99));
+        a.set(3, -5);
+        a.setInt(11, 7);
+        a.setInt(10, -1);
+        assertEquals(-5, a.get(3));
+        assertEquals(7, a.getInt(11));
+        assertEquals(-1, a.getInt(10));
+        assertEquals((7L << 32) | 0xFFFFFFFFL, a.get(5));
+
+        LongArray b = a.copy();
+        a.fill(1);
+        assertEquals(1, a.get(3));
+        assertEquals(-5, b.get(3));
+        assertEquals(7, b.getInt(11));
+    }
+
+    @Test
+    public void heap() {
+        checkArray(Storage.HEAP);
+    }
+
+    @Test
+    public void direct() {
+        checkArray(Storage.DIRECT);
+    }
+
+    @Test
+    public void mapped(@TempDir File dir) {
+        checkArray(Storage.mapped(dir));
+    }
+
+    @Test
+    public void mappedNeedsDirectory(@TempDir File dir) throws IOException {
+        File file = new File(dir, "file.tmp");
+        assertTrue(file.createNewFile());
+        assertThrows(IllegalArgumentException.class, () -> Storage.mapped(file));
+    }
+}